@@ -0,0 +1,214 @@
+package workloadplanner.benchmarks;
+
+import java.io.File;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Access to the classes of the workloadplanner. They live in the default package which cannot
+ * be imported from a named package (and JMH does not accept benchmarks in the default package),
+ * so everything is looked up once by reflection. Only the public methods are used, the steps
+ * of the DateCalculator are measured on their own through fetchEvents and a SchedulingStrategy
+ *
+ * @author Matthieu Riolo
+ *
+ */
+final class Planner {
+	private static final Constructor<?> CONFIG_READER;
+	private static final Constructor<?> DATE_CALCULATOR;
+	private static final Constructor<?> DATE_RANGE;
+	private static final Constructor<?> DEMAND;
+	private static final Constructor<?> METRICS;
+	
+	private static final Method FETCH_EVENTS;
+	private static final Method GET_EVENT_ASSIGNMENTS;
+	private static final Method GET_RESERVATIONS;
+	private static final Method STRATEGY_OF;
+	private static final Method PLACE;
+	private static final Method UNLIMITED;
+	private static final Method CALCULATE_EVENTS;
+	private static final Method CALCULATE_AND_SAVE;
+	private static final Method SUBSTRACT_COLLISIONS;
+	private static final Method GET_VACANCIES;
+	private static final Method IS_PLANNED;
+	private static final Method GET_ASSIGNMENT;
+	private static final Method BEFORE_RANGE;
+	private static final Method AFTER_RANGE;
+	private static final Method GET_TASKS_BEFORE;
+	private static final Method GET_TASKS_AFTER;
+	private static final Method GET_DURATION;
+	
+	static {
+		try {
+			Class<?> configReader = Class.forName("ConfigReader");
+			Class<?> dateCalculator = Class.forName("DateCalculator");
+			Class<?> dateRange = Class.forName("DateRange");
+			Class<?> eventAssignment = Class.forName("EventAssignment");
+			Class<?> assignment = Class.forName("Assignment");
+			Class<?> task = Class.forName("Task");
+			Class<?> strategy = Class.forName("SchedulingStrategy");
+			Class<?> budget = Class.forName("Budget");
+			Class<?> metrics = Class.forName("Metrics");
+			
+			CONFIG_READER = configReader.getConstructor(File.class);
+			DATE_CALCULATOR = dateCalculator.getConstructor(boolean.class);
+			DATE_RANGE = dateRange.getConstructor(long.class, long.class);
+			DEMAND = Class.forName("Demand").getConstructor(dateRange, int.class);
+			METRICS = metrics.getConstructor();
+			
+			FETCH_EVENTS = dateCalculator.getMethod("fetchEvents", configReader);
+			GET_EVENT_ASSIGNMENTS = dateCalculator.getMethod("getEventAssignments");
+			GET_RESERVATIONS = dateCalculator.getMethod("getReservations");
+			STRATEGY_OF = strategy.getMethod("of", String.class);
+			PLACE = strategy.getMethod("place", List.class, List.class, Class.forName("ReservationIndex"), metrics, budget);
+			UNLIMITED = budget.getMethod("unlimited");
+			CALCULATE_EVENTS = dateCalculator.getMethod("calculateEvents", configReader);
+			CALCULATE_AND_SAVE = dateCalculator.getMethod("calculateAndSave", configReader, File.class);
+			SUBSTRACT_COLLISIONS = dateRange.getMethod("substractCollisions", List.class);
+			GET_VACANCIES = configReader.getMethod("getVacancies");
+			IS_PLANNED = eventAssignment.getMethod("isPlanned");
+			GET_ASSIGNMENT = eventAssignment.getMethod("getAssignment");
+			BEFORE_RANGE = eventAssignment.getMethod("beforeRange");
+			AFTER_RANGE = eventAssignment.getMethod("afterRange");
+			GET_TASKS_BEFORE = assignment.getMethod("getTasksBefore");
+			GET_TASKS_AFTER = assignment.getMethod("getTasksAfter");
+			GET_DURATION = task.getMethod("getDuration");
+		}catch(ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+	
+	private Planner() {
+	}
+	
+	/**
+	 * Creates and processes a ConfigReader
+	 * @param the configuration file
+	 * @return a new ConfigReader
+	 * @throws Exception if the configuration cannot be read
+	 */
+	static Object configReader(File config) throws Exception {
+		Object reader = CONFIG_READER.newInstance(config);
+		reader.getClass().getMethod("process").invoke(reader);
+		return reader;
+	}
+	
+	/**
+	 * Creates a DateCalculator which does not print anything but the missing vacancies
+	 * @return a new DateCalculator
+	 * @throws Exception if the DateCalculator cannot be created
+	 */
+	static Object dateCalculator() throws Exception {
+		return DATE_CALCULATOR.newInstance(false);
+	}
+	
+	/**
+	 * Creates a DateRange
+	 * @param start in minutes (see DateRange)
+	 * @param end in minutes (see DateRange)
+	 * @return a new DateRange
+	 * @throws Exception if start is after end
+	 */
+	static Object dateRange(long start, long end) throws Exception {
+		return DATE_RANGE.newInstance(start, end);
+	}
+	
+	/**
+	 * Calls DateRange.substractCollisions
+	 * @param the range to subtract from
+	 * @param the ranges to subtract
+	 * @return the free ranges
+	 * @throws Exception if the call fails
+	 */
+	static List<?> substractCollisions(Object range, List<?> ranges) throws Exception {
+		return (List<?>) invoke(SUBSTRACT_COLLISIONS, range, ranges);
+	}
+	
+	/**
+	 * Calls DateCalculator.fetchEvents
+	 * @param the DateCalculator
+	 * @param the ConfigReader (its assignments collect the events, so use a fresh one per call)
+	 * @throws Exception if the call fails
+	 */
+	static void fetchEvents(Object calculator, Object reader) throws Exception {
+		invoke(FETCH_EVENTS, calculator, reader);
+	}
+	
+	/**
+	 * Creates a Demand for every task of the fetched events in the order calculateEvents plans them
+	 * @param the DateCalculator after fetchEvents has been called
+	 * @return the demands
+	 * @throws Exception if the call fails
+	 */
+	static List<Object> demands(Object calculator) throws Exception {
+		List<Object> ret = new ArrayList<>();
+		
+		for(Object cm : (List<?>) invoke(GET_EVENT_ASSIGNMENTS, calculator)) {
+			if(!(Boolean) invoke(IS_PLANNED, cm)) {
+				continue;
+			}
+			
+			Object assignment = invoke(GET_ASSIGNMENT, cm);
+			
+			for(Object type : (List<?>) invoke(GET_TASKS_BEFORE, assignment)) {
+				ret.add(DEMAND.newInstance(invoke(BEFORE_RANGE, cm), invoke(GET_DURATION, type)));
+			}
+			
+			for(Object type : (List<?>) invoke(GET_TASKS_AFTER, assignment)) {
+				ret.add(DEMAND.newInstance(invoke(AFTER_RANGE, cm), invoke(GET_DURATION, type)));
+			}
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * Places the demands with a SchedulingStrategy into the reservations of the DateCalculator
+	 * @param name of the strategy (greedy, queue or flow)
+	 * @param the DateCalculator after fetchEvents has been called
+	 * @param the ConfigReader passed to fetchEvents
+	 * @param the demands (see demands), they receive their placement
+	 * @throws Exception if the call fails
+	 */
+	static void place(String strategy, Object calculator, Object reader, List<Object> demands) throws Exception {
+		invoke(PLACE, invoke(STRATEGY_OF, null, strategy), demands, invoke(GET_VACANCIES, reader), invoke(GET_RESERVATIONS, calculator), METRICS.newInstance(), invoke(UNLIMITED, null));
+	}
+	
+	/**
+	 * Calls DateCalculator.calculateEvents
+	 * @param the DateCalculator
+	 * @param the ConfigReader
+	 * @return the created events and notes
+	 * @throws Exception if the call fails
+	 */
+	static List<?> calculateEvents(Object calculator, Object reader) throws Exception {
+		return (List<?>) invoke(CALCULATE_EVENTS, calculator, reader);
+	}
+	
+	/**
+	 * Calls DateCalculator.calculateAndSave
+	 * @param the DateCalculator
+	 * @param the ConfigReader
+	 * @param the output file
+	 * @return true if the file has been written
+	 * @throws Exception if the call fails
+	 */
+	static boolean calculateAndSave(Object calculator, Object reader, File location) throws Exception {
+		return (Boolean) invoke(CALCULATE_AND_SAVE, calculator, reader, location);
+	}
+	
+	private static Object invoke(Method method, Object target, Object... args) throws Exception {
+		try {
+			return method.invoke(target, args);
+		}catch(InvocationTargetException e) {
+			if(e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			
+			throw e;
+		}
+	}
+}
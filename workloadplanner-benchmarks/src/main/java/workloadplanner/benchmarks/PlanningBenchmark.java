@@ -0,0 +1,137 @@
+package workloadplanner.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the steps of the planning over a generated schedule (see ScheduleGenerator). The assignments of a ConfigReader
+ * collect the matched events, so every invocation gets a fresh ConfigReader and DateCalculator.
+ * The messages about missing vacancies are discarded while measuring
+ *
+ * @author Matthieu Riolo
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = {"-Dnet.fortuna.ical4j.timezone.update.enabled=false"})
+public class PlanningBenchmark {
+	@Param({"100", "1000", "10000", "100000"})
+	public int events;
+	
+	@Param({"NORMAL"})
+	public ScheduleGenerator.Density density;
+	
+	private File directory;
+	private File config;
+	private PrintStream stdout;
+	private File output;
+	
+	private Object reader;
+	private Object calculator;
+	
+	@Setup(Level.Trial)
+	public void createCalendar() throws IOException {
+		directory = Files.createTempDirectory("workloadplanner-benchmark").toFile();
+		output = new File(directory, "out.ics");
+		
+		ScheduleGenerator generator = new ScheduleGenerator();
+		generator.setSeed(events);
+		generator.setEvents(events);
+		generator.setDensity(density);
+		config = generator.generate(directory);
+		
+		stdout = System.out;
+		System.setOut(new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+			
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		}));
+	}
+	
+	@TearDown(Level.Trial)
+	public void deleteCalendar() {
+		System.setOut(stdout);
+		
+		File[] files = directory.listFiles();
+		if(files != null) {
+			for(File file : files) {
+				file.delete();
+			}
+		}
+		
+		directory.delete();
+	}
+	
+	@Setup(Level.Invocation)
+	public void createPlanner() throws Exception {
+		reader = Planner.configReader(config);
+		calculator = Planner.dateCalculator();
+	}
+	
+	@Benchmark
+	public Object fetchEvents() throws Exception {
+		Planner.fetchEvents(calculator, reader);
+		return calculator;
+	}
+	
+	@Benchmark
+	public List<?> calculateEvents() throws Exception {
+		return Planner.calculateEvents(calculator, reader);
+	}
+	
+	@Benchmark
+	public boolean calculateAndSave() throws Exception {
+		return Planner.calculateAndSave(calculator, reader, output);
+	}
+	
+	/**
+	 * Only measures the placement of the tasks by the greedy strategy, the events are fetched
+	 * and the demands are created before
+	 */
+	@State(Scope.Benchmark)
+	public static class Fetched {
+		Object reader;
+		Object calculator;
+		List<Object> demands;
+		
+		@Setup(Level.Invocation)
+		public void fetch(PlanningBenchmark benchmark) throws Exception {
+			reader = Planner.configReader(benchmark.config);
+			calculator = Planner.dateCalculator();
+			Planner.fetchEvents(calculator, reader);
+			demands = Planner.demands(calculator);
+		}
+	}
+	
+	@Benchmark
+	public List<Object> placeTasks(Fetched fetched) throws Exception {
+		Planner.place("greedy", fetched.calculator, fetched.reader, fetched.demands);
+		return fetched.demands;
+	}
+}
@@ -0,0 +1,419 @@
+package workloadplanner.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.GnuParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+
+/**
+ * Generates schedules (ICS files) and a configuration using them for benchmarks and load tests.
+ * The same seed and settings always produce the same files.
+ * 
+ * Each schedule is a sequence of events with gaps depending on the density. Summaries recur:
+ * a share of the events (hit rate) belongs to a subject matched by an assignment, the others
+ * are meetings which no pattern matches. Overlapping events are always meetings, so the events
+ * of one assignment never overlap each other. The subjects are split over the schedules for the
+ * same reason
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class ScheduleGenerator {
+	final static DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+	final static int MEETINGS = 50;
+	
+	/**
+	 * Gaps between two events of a schedule
+	 */
+	public enum Density {
+		SPARSE(24, 96),
+		NORMAL(2, 26),
+		DENSE(0, 4);
+		
+		private int minGap;
+		private int maxGap;
+		
+		Density(int minGap, int maxGap) {
+			this.minGap = minGap;
+			this.maxGap = maxGap;
+		}
+		
+		/**
+		 * Draws the gap after an event
+		 * @param the random generator
+		 * @return gap in hours
+		 */
+		int gap(Random random) {
+			return minGap + random.nextInt(maxGap - minGap + 1);
+		}
+	}
+	
+	private long seed = 1;
+	private int events = 1000;
+	private int schedules = 1;
+	private int assignments = 10;
+	private int vacanciesPerDay = 2;
+	private Density density = Density.NORMAL;
+	private double overlap = 0.1;
+	private double hitRate = 0.3;
+	private double unconfirmed = 0.1;
+	private LocalDateTime start = LocalDateTime.of(2018, 1, 1, 8, 0);
+	
+	/**
+	 * Setter for the seed of the random generator
+	 * @param seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+	
+	/**
+	 * Setter for the total amount of events
+	 * @param amount of events over all schedules
+	 * @throws Exception if the amount is negative
+	 */
+	public void setEvents(int events) {
+		if(events < 0) {
+			throw new RuntimeException("The amount of events cannot be negative");
+		}
+		
+		this.events = events;
+	}
+	
+	/**
+	 * Setter for the amount of ICS files
+	 * @param amount of schedules
+	 * @throws Exception if the amount is less than 1
+	 */
+	public void setSchedules(int schedules) {
+		if(schedules < 1) {
+			throw new RuntimeException("At least one schedule is needed");
+		}
+		
+		this.schedules = schedules;
+	}
+	
+	/**
+	 * Setter for the amount of assignment nodes
+	 * @param amount of assignments (and matched subjects)
+	 * @throws Exception if the amount is less than 1
+	 */
+	public void setAssignments(int assignments) {
+		if(assignments < 1) {
+			throw new RuntimeException("At least one assignment is needed");
+		}
+		
+		this.assignments = assignments;
+	}
+	
+	/**
+	 * Setter for the amount of vacancies on each weekday
+	 * @param amount of vacancies per day (the day from 06:00 to 23:00 is split into them)
+	 * @throws Exception if the amount is not in range of 1-17
+	 */
+	public void setVacanciesPerDay(int vacanciesPerDay) {
+		if(vacanciesPerDay < 1 || vacanciesPerDay > 17) {
+			throw new RuntimeException("The amount of vacancies per day must be in range of 1-17");
+		}
+		
+		this.vacanciesPerDay = vacanciesPerDay;
+	}
+	
+	/**
+	 * Setter for the density of the events
+	 * @param density
+	 */
+	public void setDensity(Density density) {
+		this.density = density;
+	}
+	
+	/**
+	 * Setter for the share of events overlapping the previous event
+	 * @param share in range of 0-1
+	 */
+	public void setOverlap(double overlap) {
+		this.overlap = share(overlap);
+	}
+	
+	/**
+	 * Setter for the share of events matched by an assignment
+	 * @param share in range of 0-1
+	 */
+	public void setHitRate(double hitRate) {
+		this.hitRate = share(hitRate);
+	}
+	
+	/**
+	 * Setter for the share of events which are not confirmed (tentative or cancelled)
+	 * @param share in range of 0-1
+	 */
+	public void setUnconfirmed(double unconfirmed) {
+		this.unconfirmed = share(unconfirmed);
+	}
+	
+	/**
+	 * Setter for the start of the first event
+	 * @param start
+	 */
+	public void setStart(LocalDateTime start) {
+		this.start = start;
+	}
+	
+	private static double share(double value) {
+		if(value < 0 || value > 1) {
+			throw new RuntimeException("A share must be in range of 0-1");
+		}
+		
+		return value;
+	}
+	
+	/**
+	 * Writes the schedules (schedule-N.ics) and the configuration (config.xml)
+	 * @param the directory for the generated files
+	 * @return the configuration file
+	 * @throws IOException if a file cannot be written
+	 */
+	public File generate(File directory) throws IOException {
+		if(!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("The directory '" + directory.getAbsolutePath() + "' cannot be created");
+		}
+		
+		Random random = new Random(seed);
+		List<File> files = new ArrayList<>();
+		
+		for(int i = 0; i < schedules; i++) {
+			File file = new File(directory, "schedule-" + (i + 1) + ".ics");
+			int amount = events / schedules + (i < events % schedules ? 1 : 0);
+			
+			writeSchedule(file, i, amount, random);
+			files.add(file);
+		}
+		
+		File config = new File(directory, "config.xml");
+		writeConfig(config, files);
+		
+		return config;
+	}
+	
+	private void writeSchedule(File file, int scheduleIdx, int amount, Random random) throws IOException {
+		//the subjects of the assignments are split over the schedules
+		List<Integer> subjects = new ArrayList<>();
+		for(int i = scheduleIdx; i < assignments; i += schedules) {
+			subjects.add(i);
+		}
+		
+		try(PrintWriter out = new PrintWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))) {
+			out.print("BEGIN:VCALENDAR\r\n");
+			out.print("PRODID:-//workloadplanner//generator//EN\r\n");
+			out.print("VERSION:2.0\r\n");
+			out.print("CALSCALE:GREGORIAN\r\n");
+			
+			LocalDateTime date = start.plusHours(scheduleIdx);
+			LocalDateTime previousStart = null;
+			LocalDateTime previousEnd = null;
+			LocalDateTime latestEnd = date;
+			
+			for(int i = 0; i < amount; i++) {
+				LocalDateTime from;
+				LocalDateTime to;
+				String summary;
+				int minutes = 60 + 30 * random.nextInt(5);
+				
+				if(previousStart != null && random.nextDouble() < overlap) {
+					//starts inside of the previous event
+					from = previousStart.plusMinutes(random.nextInt((int) Duration.between(previousStart, previousEnd).toMinutes()));
+					to = from.plusMinutes(minutes);
+					summary = meeting(random);
+				}else {
+					from = latestEnd.plusHours(density.gap(random));
+					to = from.plusMinutes(minutes);
+					summary = !subjects.isEmpty() && random.nextDouble() < hitRate
+							? subject(subjects.get(random.nextInt(subjects.size())), random)
+							: meeting(random);
+					
+					previousStart = from;
+					previousEnd = to;
+				}
+				
+				if(to.isAfter(latestEnd)) {
+					latestEnd = to;
+				}
+				
+				out.print("BEGIN:VEVENT\r\n");
+				out.print("UID:" + (scheduleIdx + 1) + "-" + i + "@generator\r\n");
+				out.print("DTSTAMP:20180101T000000Z\r\n");
+				out.print("DTSTART:" + from.format(FORMAT) + "\r\n");
+				out.print("DTEND:" + to.format(FORMAT) + "\r\n");
+				out.print("SUMMARY:" + summary + "\r\n");
+				out.print("STATUS:" + status(random) + "\r\n");
+				out.print("END:VEVENT\r\n");
+			}
+			
+			out.print("END:VCALENDAR\r\n");
+		}
+	}
+	
+	private String status(Random random) {
+		if(random.nextDouble() < unconfirmed) {
+			return random.nextBoolean() ? "TENTATIVE" : "CANCELLED";
+		}
+		
+		return "CONFIRMED";
+	}
+	
+	private static String meeting(Random random) {
+		return random.nextInt(5) == 0 ? "Office hour" : String.format("Meeting %02d", random.nextInt(MEETINGS));
+	}
+	
+	/**
+	 * Summary of an event belonging to an assignment. The variants are chosen so they are
+	 * matched by the pattern returned by pattern()
+	 */
+	private static String subject(int idx, Random random) {
+		switch(idx % 3) {
+		case 0:
+			return String.format("Course %03d", idx) + (random.nextBoolean() ? " Lecture" : "");
+		case 1:
+			return String.format("Course %03d", idx) + (random.nextBoolean() ? " Exercise" : " Lecture");
+		default:
+			return String.format(random.nextBoolean() ? "Course %03d" : "Seminar %03d", idx) + " Block " + random.nextInt(4);
+		}
+	}
+	
+	private static String pattern(int idx) {
+		switch(idx % 3) {
+		case 0:
+			return String.format("Course %03d.*", idx);
+		case 1:
+			return String.format("Course %03d( Lecture| Exercise)?", idx);
+		default:
+			return String.format("(Course %03d|Seminar %03d).*", idx, idx);
+		}
+	}
+	
+	private void writeConfig(File config, List<File> files) throws IOException {
+		try(PrintWriter out = new PrintWriter(Files.newBufferedWriter(config.toPath(), StandardCharsets.UTF_8))) {
+			out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+			out.println("<calendar name=\"Generated " + seed + "\">");
+			out.println("\t<schedules>");
+			
+			for(File file : files) {
+				out.println("\t\t<file>" + file.getAbsolutePath() + "</file>");
+			}
+			
+			out.println("\t</schedules>");
+			out.println("\t");
+			out.println("\t<vacancies>");
+			
+			//split the day from 06:00 to 23:00 into the vacancies, later ones have a lower priority
+			int length = 17 * 60 / vacanciesPerDay;
+			for(int day = 1; day <= 7; day++) {
+				for(int i = 0; i < vacanciesPerDay; i++) {
+					int from = 6 * 60 + i * length;
+					out.println("\t\t<time day=\"" + day + "\" from=\"" + time(from) + "\" to=\"" + time(from + length) + "\" priority=\"" + (i + 1) + "\" />");
+				}
+			}
+			
+			out.println("\t</vacancies>");
+			out.println("\t");
+			out.println("\t<assignments>");
+			
+			for(int i = 0; i < assignments; i++) {
+				out.println("\t\t<assignment pattern=\"" + pattern(i) + "\" travelhours=\"" + (i % 3) + "\">");
+				out.println("\t\t\t<task name=\"Prepare {event.name} {page.index}/{page.total}\" type=\"before\" hours=\"" + (1 + i % 4) + "\" />");
+				out.println("\t\t\t<task name=\"Review {event.name}\" type=\"after\" hours=\"1\" />");
+				out.println("\t\t</assignment>");
+			}
+			
+			out.println("\t</assignments>");
+			out.println("</calendar>");
+		}
+	}
+	
+	private static String time(int minutes) {
+		return String.format("%02d:%02d", minutes / 60, minutes % 60);
+	}
+	
+	/**
+	 * Entry point for generating files from the command line
+	 * @param application arguments
+	 * @throws Exception if the arguments are invalid or the files cannot be written
+	 */
+	public static void main(String[] args) throws Exception {
+		Options options = new Options();
+		options.addOption(new Option("h", "help", false, "Help message"));
+		options.addOption(new Option("o", "output", true, "The directory for the generated files (default: generated)"));
+		options.addOption(new Option("S", "seed", true, "Seed of the random generator (default: 1)"));
+		options.addOption(new Option("e", "events", true, "Total amount of events (default: 1000)"));
+		options.addOption(new Option("n", "schedules", true, "Amount of ICS files (default: 1)"));
+		options.addOption(new Option("a", "assignments", true, "Amount of assignments (default: 10)"));
+		options.addOption(new Option("t", "times", true, "Amount of vacancies per weekday (default: 2)"));
+		options.addOption(new Option("d", "density", true, "Density of the events: sparse, normal or dense (default: normal)"));
+		options.addOption(new Option("O", "overlap", true, "Share of events overlapping the previous one (default: 0.1)"));
+		options.addOption(new Option("r", "hitrate", true, "Share of events matched by an assignment (default: 0.3)"));
+		options.addOption(new Option("u", "unconfirmed", true, "Share of events which are not confirmed (default: 0.1)"));
+		
+		CommandLineParser parser = new GnuParser();
+		CommandLine commandLine = parser.parse(options, args);
+		
+		if(commandLine.hasOption("h")) {
+			new HelpFormatter().printHelp("generator", "Generates schedules and a configuration for load tests", options, "", true);
+			return;
+		}
+		
+		ScheduleGenerator generator = new ScheduleGenerator();
+		
+		if(commandLine.hasOption("S")) {
+			generator.setSeed(Long.parseLong(commandLine.getOptionValue("S")));
+		}
+		
+		if(commandLine.hasOption("e")) {
+			generator.setEvents(Integer.parseInt(commandLine.getOptionValue("e")));
+		}
+		
+		if(commandLine.hasOption("n")) {
+			generator.setSchedules(Integer.parseInt(commandLine.getOptionValue("n")));
+		}
+		
+		if(commandLine.hasOption("a")) {
+			generator.setAssignments(Integer.parseInt(commandLine.getOptionValue("a")));
+		}
+		
+		if(commandLine.hasOption("t")) {
+			generator.setVacanciesPerDay(Integer.parseInt(commandLine.getOptionValue("t")));
+		}
+		
+		if(commandLine.hasOption("d")) {
+			generator.setDensity(Density.valueOf(commandLine.getOptionValue("d").toUpperCase()));
+		}
+		
+		if(commandLine.hasOption("O")) {
+			generator.setOverlap(Double.parseDouble(commandLine.getOptionValue("O")));
+		}
+		
+		if(commandLine.hasOption("r")) {
+			generator.setHitRate(Double.parseDouble(commandLine.getOptionValue("r")));
+		}
+		
+		if(commandLine.hasOption("u")) {
+			generator.setUnconfirmed(Double.parseDouble(commandLine.getOptionValue("u")));
+		}
+		
+		File config = generator.generate(new File(commandLine.getOptionValue("o", "generated")));
+		System.out.println("Configuration has been generated in " + config.getAbsolutePath());
+	}
+}
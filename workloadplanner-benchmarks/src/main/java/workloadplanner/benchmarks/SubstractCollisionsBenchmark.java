@@ -0,0 +1,61 @@
+package workloadplanner.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures DateRange.substractCollisions for a window covering all the given reservations
+ *
+ * @author Matthieu Riolo
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubstractCollisionsBenchmark {
+	@Param({"100", "1000", "10000", "100000"})
+	public int events;
+	
+	private Object window;
+	private List<Object> reservations;
+	
+	@Setup
+	public void setup() throws Exception {
+		Random random = new Random(events);
+		reservations = new ArrayList<>(events);
+		
+		//reservations of one to three hours with gaps of up to a day, in random order
+		long start = 0;
+		for(int i = 0; i < events; i++) {
+			long end = start + 60 * (1 + random.nextInt(3));
+			reservations.add(Planner.dateRange(start, end));
+			start = end + random.nextInt(24 * 60);
+		}
+		
+		Collections.shuffle(reservations, random);
+		window = Planner.dateRange(0, start);
+	}
+	
+	@Benchmark
+	public List<?> substractCollisions() throws Exception {
+		return Planner.substractCollisions(window, reservations);
+	}
+}
@@ -1,4 +1,5 @@
 import java.io.File;
+import java.time.LocalDate;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -28,6 +29,8 @@ public class App {
 		boolean isVerbose = false;
 		String configName = "config.xml";
 		String storeFile = "out.ics";
+		int parallelism = Runtime.getRuntime().availableProcessors();
+		ScheduleDownloader downloader = new ScheduleDownloader();
 		
 		Options options = new Options();
 		options.addOption(new Option("h", "help", false, "Help message"));
@@ -35,6 +38,24 @@ public class App {
 		options.addOption(new Option("v", "verbose", false, "Verbose mode"));
 		options.addOption(new Option("c", "configuration", true, "The location of the XML configuration file"));
 		options.addOption(new Option("f", "file", true, "The location where to store the ICS file"));
+		options.addOption(new Option("p", "parallelism", true, "The amount of ICS files parsed or downloaded at the same time"));
+		options.addOption(new Option("C", "cache", true, "The directory where downloaded and parsed ICS files are cached"));
+		options.addOption(new Option("t", "timeout", true, "The timeout in seconds for downloading an ICS file"));
+		options.addOption(new Option("F", "from", true, "First day of the planning horizon (yyyy-mm-dd), overrides the configuration"));
+		options.addOption(new Option("T", "to", true, "Last day of the planning horizon (yyyy-mm-dd), overrides the configuration"));
+		options.addOption(new Option("m", "metrics", true, "The location where to store the timings and counters as JSON"));
+		options.addOption(new Option("d", "daemon", false, "Keeps running and replans whenever the configuration or a schedule changes"));
+		options.addOption(new Option("i", "interval", true, "The interval in seconds for polling the schedule URLs in daemon mode"));
+		options.addOption(new Option("S", "state", true, "The location of the file keeping the placements between runs, unchanged tasks keep their place"));
+		options.addOption(new Option("s", "streaming", false, "Reads the ICS files line by line instead of building the whole calendar"));
+		options.addOption(new Option("n", "no-snapshots", false, "Parses every ICS file instead of loading the snapshot of an unchanged file"));
+		options.addOption(new Option("b", "batch", true, "A directory or manifest of configuration files which are planned at the same time"));
+		options.addOption(new Option("o", "output", true, "The directory where to store the ICS files in batch mode"));
+		options.addOption(new Option("P", "strategy", true, "The strategy placing the tasks (greedy, queue or flow), overrides the configuration"));
+		options.addOption(new Option("x", "max-time", true, "The maximal time in seconds for planning a configuration, the remaining tasks are reported as missing"));
+		options.addOption(new Option("X", "max-slot-checks", true, "The maximal amount of slot checks for planning a configuration, the remaining tasks are reported as missing"));
+		options.addOption(new Option("R", "reservations", true, "The backend keeping the reservations (auto, interval or bitset)"));
+		options.addOption(new Option("g", "granularity", true, "The length in minutes of the buckets of the bitset backend"));
 		
 		CommandLineParser parser = new GnuParser();
 		CommandLine commandLine = parser.parse(options, args);
@@ -47,6 +68,25 @@ public class App {
         	storeFile = commandLine.getOptionValue("f");
         }
         
+        if(commandLine.hasOption("p")) {
+        	parallelism = Integer.parseInt(commandLine.getOptionValue("p"));
+        }
+        
+        if(commandLine.hasOption("C")) {
+        	downloader = new ScheduleDownloader(new File(commandLine.getOptionValue("C")));
+        }
+        
+        if(commandLine.hasOption("t")) {
+        	long timeout = Long.parseLong(commandLine.getOptionValue("t"));
+        	if(timeout < 0 || timeout > Integer.MAX_VALUE / 1000) {
+        		throw new RuntimeException("The timeout must be between 0 and " + Integer.MAX_VALUE / 1000 + " seconds");
+        	}
+        	
+        	downloader.setTimeout((int) timeout * 1000);
+        }
+        
+        downloader.setParallelism(parallelism);
+        
         if(commandLine.hasOption("v")) {
         	isVerbose = true;
         }
@@ -70,8 +110,70 @@ public class App {
         }
         
 		
+		if(commandLine.hasOption("b")) {
+			if(commandLine.hasOption("d")) {
+				throw new RuntimeException("The daemon and the batch mode cannot be combined");
+			}
+			
+			boolean verbose = isVerbose;
+			ScheduleDownloader cache = downloader;
+			File stateDirectory = commandLine.hasOption("S") ? new File(commandLine.getOptionValue("S")) : null;
+			
+			if(stateDirectory != null && !stateDirectory.isDirectory() && !stateDirectory.mkdirs()) {
+				throw new RuntimeException("The state directory '" + stateDirectory.getAbsolutePath() + "' cannot be created");
+			}
+			
+			//the configurations are planned concurrently, so each of them reads its schedules one by one
+			downloader.setReuseDownloads(true);
+			BatchPlanner batch = new BatchPlanner(
+					BatchPlanner.readConfigs(new File(commandLine.getOptionValue("b"))),
+					new File(commandLine.getOptionValue("o", "out")),
+					downloader,
+					name -> createCalculator(commandLine, verbose, 1, cache, stateDirectory == null ? null : new File(stateDirectory, name + ".state"))
+			);
+			
+			batch.setParallelism(parallelism);
+			
+			if(commandLine.hasOption("m")) {
+				batch.setMetricsDirectory(new File(commandLine.getOptionValue("m")));
+			}
+			
+			if(batch.run() > 0) {
+				System.exit(1);
+			}
+			
+			return;
+		}
+		
+		File stateFile = commandLine.hasOption("S") ? new File(commandLine.getOptionValue("S")) : null;
+		
+		if(commandLine.hasOption("d")) {
+			boolean verbose = isVerbose;
+			int threads = parallelism;
+			ScheduleDownloader cache = downloader;
+			
+			PlannerDaemon daemon = new PlannerDaemon(
+					new File(configName),
+					new File(storeFile),
+					downloader,
+					() -> createCalculator(commandLine, verbose, threads, cache, stateFile)
+			);
+			
+			if(commandLine.hasOption("i")) {
+				daemon.setInterval(Long.parseLong(commandLine.getOptionValue("i")) * 1000);
+			}
+			
+			daemon.run();
+			return;
+		}
+		
+		Metrics metrics = new Metrics();
+		long started = System.nanoTime();
+		
 		/* read in the configuration file */
 		ConfigReader conf = new ConfigReader(configName);
+		conf.setDownloader(downloader);
+		conf.setMetrics(metrics);
 		conf.process();
 		
 		if(isVerbose) {
@@ -80,11 +182,72 @@ public class App {
 		
 		/* calculate dates */
 		
-		DateCalculator calc = new DateCalculator(isVerbose);
+		DateCalculator calc = createCalculator(commandLine, isVerbose, parallelism, downloader, stateFile);
+		calc.setMetrics(metrics);
 		
 		File f = new File(storeFile);
 		if(calc.calculateAndSave(conf, f)) {
 			System.out.println("Events have been calculated and stored in " + f.getAbsolutePath());
 		}
+		
+		metrics.addTime("total", System.nanoTime() - started);
+		
+		if(isVerbose || commandLine.hasOption("m")) {
+			System.out.println();
+			metrics.printTable(System.out);
+		}
+		
+		if(commandLine.hasOption("m")) {
+			metrics.writeJson(new File(commandLine.getOptionValue("m")));
+		}
+	}
+	
+	/**
+	 * Creates a DateCalculator with the options of the command line
+	 * @param the parsed arguments
+	 * @param isVerbose flag will print a more verbose output
+	 * @param amount of ICS files parsed at the same time
+	 * @param the downloader whose cache directory also holds the snapshots
+	 * @param the file keeping the placements between runs or null
+	 * @return the configured DateCalculator
+	 */
+	private static DateCalculator createCalculator(CommandLine commandLine, boolean isVerbose, int parallelism, ScheduleDownloader downloader, File stateFile) {
+		DateCalculator calc = new DateCalculator(isVerbose);
+		calc.setParallelism(parallelism);
+		calc.setStreaming(commandLine.hasOption("s"));
+		calc.setHorizon(
+				commandLine.hasOption("F") ? LocalDate.parse(commandLine.getOptionValue("F")) : null,
+				commandLine.hasOption("T") ? LocalDate.parse(commandLine.getOptionValue("T")) : null
+		);
+		
+		if(!commandLine.hasOption("n")) {
+			calc.setSnapshotCache(new SnapshotCache(new File(downloader.getCacheDirectory(), "snapshots")));
+		}
+		
+		if(commandLine.hasOption("P")) {
+			calc.setStrategy(SchedulingStrategy.of(commandLine.getOptionValue("P")));
+		}
+		
+		if(commandLine.hasOption("x")) {
+			calc.setMaxTime(Long.parseLong(commandLine.getOptionValue("x")) * 1000);
+		}
+		
+		if(commandLine.hasOption("X")) {
+			calc.setMaxSlotChecks(Long.parseLong(commandLine.getOptionValue("X")));
+		}
+		
+		if(commandLine.hasOption("R")) {
+			calc.setReservationBackend(commandLine.getOptionValue("R"));
+		}
+		
+		if(commandLine.hasOption("g")) {
+			calc.setGranularity(Long.parseLong(commandLine.getOptionValue("g")));
+		}
+		
+		if(stateFile != null) {
+			calc.setPlanningState(new PlanningState(stateFile));
+		}
+		
+		return calc;
 	}
 }
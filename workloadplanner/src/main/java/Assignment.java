@@ -1,7 +1,9 @@
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import net.fortuna.ical4j.model.component.VEvent;
 
 /**
  * Immutable class Assignment (connection between events and tasks)
@@ -11,8 +13,10 @@ import net.fortuna.ical4j.model.component.VEvent;
  */
 public class Assignment {
 	private String regex;
+	private Pattern pattern;
 	private List<Task> tasks;
-	private List<VEvent> events;
+	private List<SourceEvent> events;
+	private Map<SourceEvent, Integer> positions;
 	private int travelHours;
 	
 	private boolean eventsSorted = false;
@@ -21,7 +25,7 @@ public class Assignment {
 	 * Constructor for assignments
 	 * @param regex which must match the event name
 	 * @param travelHours is a timespan which will be added before and after the event
-	 * @throws an Exception if no regex is passed or a negative travel hours
+	 * @throws an Exception if no regex is passed, the regex is invalid or a negative travel hours
 	 */
 	public Assignment(String regex, int travelHours) {
 		if(regex.length() == 0) {
@@ -33,10 +37,12 @@ public class Assignment {
 		}
 		
 		this.regex = regex;
+		this.pattern = Pattern.compile(regex);
 		this.travelHours = travelHours;
 		
 		tasks = new ArrayList<Task>();
-		events = new ArrayList<VEvent>();
+		events = new ArrayList<SourceEvent>();
+		positions = new IdentityHashMap<SourceEvent, Integer>();
 	}
 	
 	/**
@@ -47,6 +53,23 @@ public class Assignment {
 		return regex;
 	}
 	
+	/**
+	 * Getter for the compiled regex
+	 * @return pattern compiled from the regex passed to the constructor
+	 */
+	public Pattern getPattern() {
+		return pattern;
+	}
+	
+	/**
+	 * Tests if the whole given text matches the regex
+	 * @param the text to test (usually the summary of an event)
+	 * @return true if the text matches
+	 */
+	public boolean matches(String text) {
+		return pattern.matcher(text).matches();
+	}
+	
 	/**
 	 * Getter for the property travelHours
 	 * @return travelHours passed to the constructor
@@ -91,7 +114,7 @@ public class Assignment {
 	 * Returns all events assigned to this assignment
 	 * @return events sorted by the property start in ascending order
 	 */
-	public List<VEvent> getEvents() {
+	public List<SourceEvent> getEvents() {
 		return getEvents(true);
 	}
 	
@@ -100,10 +123,16 @@ public class Assignment {
 	 * @param if true then the returned events are sorted ascendingly by their property start
 	 * @return events assigned to this assignment
 	 */
-	public List<VEvent> getEvents(boolean sorted) {
+	public List<SourceEvent> getEvents(boolean sorted) {
 		if(sorted) {
 			if(!eventsSorted) {
-				events.sort((a, b) -> a.getStartDate().getDate().compareTo(b.getStartDate().getDate()));
+				events.sort((a, b) -> Long.compare(a.getStart(), b.getStart()));
+				
+				positions.clear();
+				for(int i = 0; i < events.size(); i++) {
+					positions.put(events.get(i), i);
+				}
+				
 				eventsSorted = true;
 			}
 		}
@@ -111,11 +140,23 @@ public class Assignment {
 		return events;
 	}
 	
+	/**
+	 * Position of an event in the sorted events
+	 * @param the event to look for
+	 * @return index in getEvents() or -1 if the event is not assigned to this assignment
+	 */
+	public int indexOf(SourceEvent event) {
+		getEvents();
+		
+		Integer pos = positions.get(event);
+		return pos == null ? -1 : pos;
+	}
+	
 	/**
 	 * Assigns an event to an assignment
 	 * @param the event to assign to
 	 */
-	public void addEvent(VEvent event) {
+	public void addEvent(SourceEvent event) {
 		eventsSorted = false;
 		events.add(event);
 	}
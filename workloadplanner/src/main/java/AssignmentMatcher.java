@@ -0,0 +1,150 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds all assignments whose regex matches a summary. Each regex is reduced to the literal
+ * prefix every match has to start with, so only the assignments which can match at all get
+ * their regex executed. The result for a summary is cached because recurring events share
+ * the same summary. The matcher can be used by multiple threads at the same time
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class AssignmentMatcher {
+	/**
+	 * Maximal number of summaries kept in the cache
+	 */
+	final static int CACHE_SIZE = 10000;
+	
+	private List<Assignment> assignments;
+	private String[] prefixes;
+	
+	//indices of assignments with a prefix grouped by the first char and the indices without a prefix
+	private Map<Character, int[]> byFirstChar = new HashMap<>();
+	private int[] withoutPrefix;
+	
+	private Map<String, List<Assignment>> cache = new ConcurrentHashMap<>();
+	
+	/**
+	 * Constructor of AssignmentMatcher
+	 * @param the assignments (the order of the matches will be the same)
+	 */
+	public AssignmentMatcher(List<Assignment> assignments) {
+		this.assignments = assignments;
+		prefixes = new String[assignments.size()];
+		
+		Map<Character, List<Integer>> groups = new HashMap<>();
+		List<Integer> rest = new ArrayList<>();
+		
+		for(int i = 0; i < prefixes.length; i++) {
+			prefixes[i] = literalPrefix(assignments.get(i).getRegex());
+			
+			if(prefixes[i].isEmpty()) {
+				rest.add(i);
+			}else {
+				groups.computeIfAbsent(prefixes[i].charAt(0), c -> new ArrayList<>()).add(i);
+			}
+		}
+		
+		groups.forEach((c, indices) -> byFirstChar.put(c, toArray(indices)));
+		withoutPrefix = toArray(rest);
+	}
+	
+	/**
+	 * Returns all assignments which match the given summary
+	 * @param the summary of an event
+	 * @return matching assignments in the order given to the constructor
+	 */
+	public List<Assignment> match(String summary) {
+		List<Assignment> ret = cache.get(summary);
+		
+		if(ret == null) {
+			ret = matchUncached(summary);
+			
+			if(cache.size() < CACHE_SIZE) {
+				cache.put(summary, ret);
+			}
+		}
+		
+		return ret;
+	}
+	
+	private List<Assignment> matchUncached(String summary) {
+		int[] candidates = summary.isEmpty() ? null : byFirstChar.get(summary.charAt(0));
+		if(candidates == null) {
+			candidates = new int[0];
+		}
+		
+		List<Assignment> ret = null;
+		int i = 0;
+		int j = 0;
+		
+		//merge both sorted candidate lists to keep the order of the assignments
+		while(i < candidates.length || j < withoutPrefix.length) {
+			int idx;
+			if(j >= withoutPrefix.length || (i < candidates.length && candidates[i] < withoutPrefix[j])) {
+				idx = candidates[i++];
+			}else {
+				idx = withoutPrefix[j++];
+			}
+			
+			if(!summary.startsWith(prefixes[idx])) {
+				continue;
+			}
+			
+			Assignment assignment = assignments.get(idx);
+			if(assignment.matches(summary)) {
+				if(ret == null) {
+					ret = new ArrayList<>();
+				}
+				
+				ret.add(assignment);
+			}
+		}
+		
+		return ret == null ? Collections.emptyList() : Collections.unmodifiableList(ret);
+	}
+	
+	/**
+	 * Extracts the literal text every match of the regex has to start with
+	 * @param regex
+	 * @return the literal prefix or an empty string if there is none
+	 */
+	static String literalPrefix(String regex) {
+		//an alternation anywhere could allow a different beginning
+		if(regex.indexOf('|') >= 0) {
+			return "";
+		}
+		
+		StringBuilder prefix = new StringBuilder();
+		
+		for(int i = 0; i < regex.length(); i++) {
+			char c = regex.charAt(i);
+			
+			if(c == '*' || c == '?' || c == '{') {
+				//the previous char is optional
+				if(prefix.length() > 0) {
+					prefix.setLength(prefix.length() - 1);
+				}
+				
+				break;
+			}
+			
+			if(".$^+()[]\\".indexOf(c) >= 0) {
+				break;
+			}
+			
+			prefix.append(c);
+		}
+		
+		return prefix.toString();
+	}
+	
+	private static int[] toArray(List<Integer> list) {
+		return list.stream().mapToInt(Integer::intValue).toArray();
+	}
+}
@@ -0,0 +1,198 @@
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Plans many configurations concurrently in the same JVM. The downloaded and parsed schedules
+ * are shared between the configurations, so a schedule used by several of them is only read
+ * once. Every configuration writes its own ICS file (and metrics) named after the configuration
+ * into the output directory
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class BatchPlanner {
+	private List<File> configs;
+	private File outputDirectory;
+	private File metricsDirectory;
+	private ScheduleDownloader downloader;
+	private Function<String, DateCalculator> calculators;
+	private SourceCache sources = new SourceCache();
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	
+	/**
+	 * Constructor of BatchPlanner
+	 * @param the configuration files
+	 * @param the directory receiving the ICS files
+	 * @param the downloader shared by all configurations
+	 * @param creates a configured DateCalculator for the configuration with the given name
+	 * @throws Exception if two configurations have the same name
+	 */
+	public BatchPlanner(List<File> configs, File outputDirectory, ScheduleDownloader downloader, Function<String, DateCalculator> calculators) {
+		Map<String, File> names = new HashMap<>();
+		
+		for(File config : configs) {
+			File other = names.put(name(config), config);
+			
+			if(other != null) {
+				throw new RuntimeException("The configurations '" + other + "' and '" + config + "' would write the same output file");
+			}
+		}
+		
+		this.configs = configs;
+		this.outputDirectory = outputDirectory;
+		this.downloader = downloader;
+		this.calculators = calculators;
+	}
+	
+	/**
+	 * Reads the configuration files of a directory or manifest. A directory contains the
+	 * configurations as XML files, a manifest lists one configuration per line (relative to
+	 * the manifest, empty lines and lines starting with # are ignored)
+	 * @param the directory or manifest
+	 * @return the configuration files ordered by name or in the order of the manifest
+	 * @throws IOException if the manifest cannot be read
+	 */
+	public static List<File> readConfigs(File location) throws IOException {
+		List<File> ret = new ArrayList<>();
+		
+		if(location.isDirectory()) {
+			File[] files = location.listFiles((dir, name) -> name.toLowerCase().endsWith(".xml"));
+			Arrays.sort(files);
+			ret.addAll(Arrays.asList(files));
+			return ret;
+		}
+		
+		File base = location.getAbsoluteFile().getParentFile();
+		
+		for(String line : Files.readAllLines(location.toPath(), StandardCharsets.UTF_8)) {
+			line = line.trim();
+			
+			if(line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			
+			File config = new File(line);
+			ret.add(config.isAbsolute() ? config : new File(base, line));
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * Name of the files written for a configuration
+	 * @param the configuration file
+	 * @return the file name without the extension .xml
+	 */
+	public static String name(File config) {
+		String ret = config.getName();
+		return ret.toLowerCase().endsWith(".xml") ? ret.substring(0, ret.length() - 4) : ret;
+	}
+	
+	/**
+	 * Setter for the amount of configurations planned at the same time
+	 * @param parallelism
+	 * @throws Exception if parallelism is less than 1
+	 */
+	public void setParallelism(int parallelism) {
+		if(parallelism < 1) {
+			throw new RuntimeException("The parallelism must be at least 1");
+		}
+		
+		this.parallelism = parallelism;
+	}
+	
+	/**
+	 * Setter for the directory receiving the metrics of every configuration as JSON
+	 * @param the directory or null to write no metrics
+	 */
+	public void setMetricsDirectory(File metricsDirectory) {
+		this.metricsDirectory = metricsDirectory;
+	}
+	
+	/**
+	 * Plans all configurations. A failing configuration does not stop the others
+	 * @return amount of configurations which could not be planned
+	 * @throws Exception if the output directories cannot be created
+	 */
+	public int run() throws Exception {
+		for(File directory : new File[] {outputDirectory, metricsDirectory}) {
+			if(directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+				throw new IOException("The directory '" + directory.getAbsolutePath() + "' cannot be created");
+			}
+		}
+		
+		int failed = 0;
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, configs.size())));
+		
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			
+			for(File config : configs) {
+				results.add(pool.submit(() -> plan(config)));
+			}
+			
+			for(Future<Boolean> result : results) {
+				if(!result.get()) {
+					failed++;
+				}
+			}
+		}finally {
+			pool.shutdownNow();
+		}
+		
+		System.out.println((configs.size() - failed) + " of " + configs.size() + " configurations have been planned");
+		
+		return failed;
+	}
+	
+	/**
+	 * Plans a single configuration
+	 * @param the configuration file
+	 * @return false if the planning failed
+	 */
+	private boolean plan(File config) {
+		String name = name(config);
+		Metrics metrics = new Metrics();
+		long started = System.nanoTime();
+		
+		try {
+			ConfigReader conf = new ConfigReader(config);
+			conf.setDownloader(downloader);
+			conf.setMetrics(metrics);
+			conf.process();
+			
+			DateCalculator calc = calculators.apply(name);
+			calc.setSourceCache(sources);
+			calc.setMetrics(metrics);
+			
+			File output = new File(outputDirectory, name + ".ics");
+			if(calc.calculateAndSave(conf, output)) {
+				System.out.println("Events have been calculated and stored in " + output.getAbsolutePath());
+			}
+			
+			metrics.addTime("total", System.nanoTime() - started);
+			
+			if(metricsDirectory != null) {
+				metrics.writeJson(new File(metricsDirectory, name + ".json"));
+			}
+			
+			return true;
+		}catch(Exception e) {
+			System.out.println("Planning of " + config + " failed: " + e.getMessage());
+			return false;
+		}
+	}
+}
@@ -0,0 +1,220 @@
+/**
+ * Occupancy timeline of buckets with a fixed length (e.g. 15 minutes). Each bucket is one bit of a
+ * long array, so reserving and searching free runs handle 64 buckets per operation no
+ * matter how many reservations the calendar contains. A reservation occupies every bucket it
+ * touches, so times which are not aligned to the buckets are rounded outwards. The timeline
+ * grows to both sides when a reservation outside of it is added, buckets outside are free
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class BitsetReservations implements ReservationIndex {
+	private long granularity;
+	private long origin = 0;
+	private long[] words = new long[0];
+	
+	/**
+	 * Constructor of BitsetReservations
+	 * @param length of a bucket in minutes, a day must consist of whole buckets
+	 * @throws Exception if the length is less than 1 minute or does not divide a day
+	 */
+	public BitsetReservations(long granularity) {
+		if(granularity < 1 || DateRange.MINUTES_PER_DAY % granularity != 0) {
+			throw new RuntimeException("The granularity must be at least 1 minute and divide a day into whole buckets");
+		}
+		
+		this.granularity = granularity;
+	}
+	
+	/**
+	 * Getter for the length of the buckets
+	 * @return length in minutes
+	 */
+	public long getGranularity() {
+		return granularity;
+	}
+	
+	@Override
+	public void add(long start, long end) {
+		if(start >= end) {
+			return;
+		}
+		
+		grow(start, end);
+		set(bucket(start), bucket(end - 1) + 1);
+	}
+	
+	@Override
+	public long findFree(long from, long to, long minLength) {
+		long cursor = from;
+		
+		while(cursor < to) {
+			long idx = bucket(cursor);
+			
+			if(isSet(idx)) {
+				//jump behind the reserved run
+				cursor = Math.max(cursor, minute(nextClear(idx)));
+				continue;
+			}
+			
+			long end = Math.min(to, minute(nextSet(idx)));
+			if(end - cursor >= minLength) {
+				return cursor;
+			}
+			
+			cursor = end;
+		}
+		
+		return NONE;
+	}
+	
+	@Override
+	public boolean isFree(long start, long end) {
+		if(start >= end) {
+			return !isSet(bucket(start));
+		}
+		
+		long idx = bucket(start);
+		return nextSet(idx) > bucket(end - 1);
+	}
+	
+	@Override
+	public long freeEnd(long start, long to) {
+		return Math.min(to, Math.max(start, minute(nextSet(bucket(start)))));
+	}
+	
+	/**
+	 * Index of the bucket containing a minute
+	 * @param minutes (see DateRange)
+	 * @return index relative to the start of the timeline (can be outside of it)
+	 */
+	private long bucket(long minutes) {
+		return Math.floorDiv(minutes - origin, granularity);
+	}
+	
+	/**
+	 * Start of a bucket
+	 * @param index of the bucket
+	 * @return minutes (see DateRange), Long.MAX_VALUE for buckets behind the timeline
+	 */
+	private long minute(long idx) {
+		return idx == Long.MAX_VALUE ? Long.MAX_VALUE : origin + idx * granularity;
+	}
+	
+	private boolean isSet(long idx) {
+		return idx >= 0 && idx < (long) words.length * 64 && (words[(int) (idx >>> 6)] & (1L << idx)) != 0;
+	}
+	
+	/**
+	 * Finds the first reserved bucket at or after the given one
+	 * @param index of the bucket
+	 * @return index of the reserved bucket or Long.MAX_VALUE if all following buckets are free
+	 */
+	private long nextSet(long idx) {
+		if(idx < 0) {
+			idx = 0;
+		}
+		
+		int word = (int) (idx >>> 6);
+		if(idx >= (long) words.length * 64) {
+			return Long.MAX_VALUE;
+		}
+		
+		long bits = words[word] & (-1L << idx);
+		while(bits == 0) {
+			if(++word >= words.length) {
+				return Long.MAX_VALUE;
+			}
+			
+			bits = words[word];
+		}
+		
+		return (long) word * 64 + Long.numberOfTrailingZeros(bits);
+	}
+	
+	/**
+	 * Finds the first free bucket at or after the given one
+	 * @param index of the bucket
+	 * @return index of the free bucket
+	 */
+	private long nextClear(long idx) {
+		if(idx < 0 || idx >= (long) words.length * 64) {
+			return idx;
+		}
+		
+		int word = (int) (idx >>> 6);
+		long bits = ~words[word] & (-1L << idx);
+		while(bits == 0) {
+			if(++word >= words.length) {
+				return (long) words.length * 64;
+			}
+			
+			bits = ~words[word];
+		}
+		
+		return (long) word * 64 + Long.numberOfTrailingZeros(bits);
+	}
+	
+	/**
+	 * Reserves the buckets between from (inclusive) and to (exclusive) word by word
+	 * @param first bucket
+	 * @param bucket after the last one
+	 */
+	private void set(long from, long to) {
+		int first = (int) (from >>> 6);
+		int last = (int) ((to - 1) >>> 6);
+		long firstMask = -1L << from;
+		long lastMask = -1L >>> -to;
+		
+		for(int word = first; word <= last; word++) {
+			long mask = -1L;
+			if(word == first) {
+				mask &= firstMask;
+			}
+			
+			if(word == last) {
+				mask &= lastMask;
+			}
+			
+			words[word] |= mask;
+		}
+	}
+	
+	/**
+	 * Extends the timeline so it covers the timespan between start and end. The timeline grows
+	 * by at least the half of its size to keep the copying rare
+	 * @param start in minutes
+	 * @param end in minutes
+	 */
+	private void grow(long start, long end) {
+		if(words.length == 0) {
+			//start the timeline at midnight before the first reservation
+			origin = Math.floorDiv(start, DateRange.MINUTES_PER_DAY) * DateRange.MINUTES_PER_DAY;
+		}
+		
+		long first = bucket(start);
+		long last = bucket(end - 1);
+		
+		int before = first < 0 ? (int) ((-first + 63) >>> 6) : 0;
+		int after = last >= (long) words.length * 64 ? (int) ((last >>> 6) + 1 - words.length) : 0;
+		
+		if(before == 0 && after == 0) {
+			return;
+		}
+		
+		int margin = words.length / 2;
+		if(before > 0) {
+			before = Math.max(before, margin);
+		}
+		
+		if(after > 0) {
+			after = Math.max(after, margin);
+		}
+		
+		long[] grown = new long[words.length + before + after];
+		System.arraycopy(words, 0, grown, before, words.length);
+		
+		words = grown;
+		origin -= (long) before * 64 * granularity;
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ * Limits the work of a run by time and by the amount of slot checks. The strategies spend
+ * the budget inside of their loops and stop as soon as it is exhausted, the placements done
+ * so far are kept
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class Budget {
+	/**
+	 * Amount of checks between two readings of the clock
+	 */
+	final static long CLOCK_INTERVAL = 1024;
+	
+	private long started = System.nanoTime();
+	private long maxNanos;
+	private long maxChecks;
+	private long checks = 0;
+	private boolean exhausted = false;
+	
+	/**
+	 * Constructor of Budget, the time starts running immediately
+	 * @param maximal time in milliseconds or Long.MAX_VALUE for no limit
+	 * @param maximal amount of slot checks or Long.MAX_VALUE for no limit
+	 */
+	public Budget(long maxTime, long maxChecks) {
+		this.maxNanos = maxTime >= Long.MAX_VALUE / 1000000 ? Long.MAX_VALUE : maxTime * 1000000;
+		this.maxChecks = maxChecks;
+	}
+	
+	/**
+	 * Creates a budget without any limit
+	 * @return the budget
+	 */
+	public static Budget unlimited() {
+		return new Budget(Long.MAX_VALUE, Long.MAX_VALUE);
+	}
+	
+	/**
+	 * Spends slot checks
+	 * @param amount of checks
+	 * @return false if the budget is exhausted and the check must not be done
+	 */
+	public boolean spend(long amount) {
+		if(exhausted) {
+			return false;
+		}
+		
+		if(amount > maxChecks - checks) {
+			exhausted = true;
+			return false;
+		}
+		
+		long before = checks;
+		checks += amount;
+		
+		if(before / CLOCK_INTERVAL != checks / CLOCK_INTERVAL || before == 0) {
+			return !isExhausted();
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Tells if the budget has run out
+	 * @return true if the time is over or all slot checks have been spent
+	 */
+	public boolean isExhausted() {
+		if(!exhausted && maxNanos != Long.MAX_VALUE && System.nanoTime() - started > maxNanos) {
+			exhausted = true;
+		}
+		
+		return exhausted;
+	}
+	
+	/**
+	 * Tells if the budget has stopped a strategy. Unlike isExhausted the clock is not read, so a
+	 * run which finished in time is not reported afterwards
+	 * @return true if spend or isExhausted found the budget exhausted
+	 */
+	public boolean hasStopped() {
+		return exhausted;
+	}
+	
+	/**
+	 * Getter for the spent slot checks
+	 * @return amount of checks
+	 */
+	public long getChecks() {
+		return checks;
+	}
+}
@@ -0,0 +1,138 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import net.fortuna.ical4j.data.FoldingWriter;
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.Property;
+import net.fortuna.ical4j.model.component.CalendarComponent;
+import net.fortuna.ical4j.model.property.CalScale;
+import net.fortuna.ical4j.model.property.Name;
+import net.fortuna.ical4j.model.property.ProdId;
+import net.fortuna.ical4j.model.property.Version;
+import net.fortuna.ical4j.model.property.XProperty;
+import net.fortuna.ical4j.util.CompatibilityHints;
+import net.fortuna.ical4j.validate.ValidationException;
+
+/**
+ * Writes an ICS file component by component instead of building the whole calendar in memory.
+ * The content is written to a temporary file next to the location which replaces the location
+ * on commit, so readers never see a partially written calendar. The lines are folded and
+ * validated the same way the CalendarOutputter of ical4j does it
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class CalendarWriter implements AutoCloseable {
+	private File location;
+	private File temp;
+	private FoldingWriter writer;
+	private int count = 0;
+	private boolean committed = false;
+	
+	/**
+	 * Constructor of CalendarWriter. Writes the header of the calendar
+	 * @param the location of the ICS file
+	 * @param the name of the calendar
+	 * @throws IOException if the temporary file cannot be written
+	 * @throws ValidationException if the properties of the calendar are invalid
+	 */
+	public CalendarWriter(File location, String name) throws IOException, ValidationException {
+		this.location = location.getAbsoluteFile();
+		
+		//create basic calendar
+		Calendar calendar = new Calendar();
+		
+		calendar.getProperties().add(new ProdId("-//" + App.CREATOR + "//" + App.APPNAME + " " + App.VERSION + "//EN"));
+		calendar.getProperties().add(Version.VERSION_2_0);
+		calendar.getProperties().add(CalScale.GREGORIAN);
+		
+		//add name
+		calendar.getProperties().add(new Name(name));
+		calendar.getProperties().add(new XProperty("X-WR-CALNAME", name));
+		
+		for(Property property : calendar.getProperties()) {
+			property.validate();
+		}
+		
+		//hidden and long enough as prefix even for short names
+		temp = File.createTempFile("." + this.location.getName() + ".", ".part", this.location.getParentFile());
+		
+		try {
+			writer = new FoldingWriter(
+					new BufferedWriter(new OutputStreamWriter(
+							Channels.newOutputStream(FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)),
+							StandardCharsets.UTF_8
+					), 1 << 16),
+					CompatibilityHints.isHintEnabled(CompatibilityHints.KEY_OUTLOOK_COMPATIBILITY)
+							? FoldingWriter.MAX_FOLD_LENGTH
+							: FoldingWriter.REDUCED_FOLD_LENGTH
+			);
+			
+			writer.write("BEGIN:VCALENDAR\r\n");
+			writer.write(calendar.getProperties().toString());
+		}catch(IOException e) {
+			close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Appends a component to the calendar
+	 * @param the event or note
+	 * @throws IOException if the component cannot be written
+	 * @throws ValidationException if the component is invalid
+	 */
+	public void write(CalendarComponent component) throws IOException, ValidationException {
+		component.validate();
+		writer.write(component.toString());
+		count++;
+	}
+	
+	/**
+	 * Getter for the amount of written components
+	 * @return amount of components
+	 */
+	public int getCount() {
+		return count;
+	}
+	
+	/**
+	 * Writes the footer of the calendar and replaces the location with the written file
+	 * @throws IOException if the file cannot be written or moved
+	 */
+	public void commit() throws IOException {
+		writer.write("END:VCALENDAR\r\n");
+		writer.close();
+		
+		Files.move(temp.toPath(), location.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		committed = true;
+	}
+	
+	/**
+	 * Discards the written file if it has not been committed
+	 * @throws IOException if the temporary file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		if(committed) {
+			return;
+		}
+		
+		try {
+			if(writer != null) {
+				writer.close();
+			}
+		}finally {
+			temp.delete();
+		}
+	}
+}
@@ -9,10 +9,13 @@ import java.io.File;
  * */
 
 import java.net.URL;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
-import org.apache.commons.io.FileUtils;
 import org.jdom.Document; 
 import org.jdom.Element;
 import org.jdom.input.SAXBuilder;
@@ -26,10 +29,17 @@ import org.jdom.input.SAXBuilder;
 public class ConfigReader {
 	private File file;
 	private boolean processed = false;
+	private ScheduleDownloader downloader = new ScheduleDownloader();
+	private Metrics metrics = new Metrics();
 	
 	
 	private String name;
 	private List<File> icsLocations = new ArrayList<File>();
+	private List<URL> scheduleURLs = new ArrayList<URL>();
+	private List<File> scheduleFiles = new ArrayList<File>();
+	private LocalDate horizonFrom;
+	private LocalDate horizonTo;
+	private String strategy = "greedy";
 	private List<Vacancy> vacancies = new ArrayList<Vacancy>();
 	private List<Assignment> assignments = new ArrayList<Assignment>();
 	
@@ -49,6 +59,22 @@ public class ConfigReader {
 		this.file = file;
 	}
 	
+	/**
+	 * Setter for the downloader which fetches the schedules given as URL
+	 * @param the downloader to use
+	 */
+	public void setDownloader(ScheduleDownloader downloader) {
+		this.downloader = downloader;
+	}
+	
+	/**
+	 * Setter for the metrics which receive the time spent on reading and downloading
+	 * @param metrics
+	 */
+	public void setMetrics(Metrics metrics) {
+		this.metrics = metrics;
+	}
+	
 	/**
 	 * Parses the XML file
 	 * @throws Exception if the file cannot be found
@@ -64,12 +90,22 @@ public class ConfigReader {
 		}
 		
 		
+		long started = System.nanoTime();
+		
 		//test if file can be parsed
 		SAXBuilder builder = new SAXBuilder(); 
-        Document document = builder.build(file); 
-        
-        processDocument(document);
+		Document document = builder.build(file); 
+		
+		processDocument(document);
+		metrics.addTime("config", System.nanoTime() - started);
 		
+		//the schedules are only downloaded once the whole configuration is valid
+		if(!scheduleURLs.isEmpty()) {
+			started = System.nanoTime();
+			icsLocations.addAll(0, downloader.download(scheduleURLs));
+			metrics.addTime("download", System.nanoTime() - started);
+			metrics.count("schedules.downloaded", scheduleURLs.size());
+		}
 		
 		processed = true;
 	}
@@ -108,12 +144,9 @@ public class ConfigReader {
 			throw new Exception("No nodes ('url' or 'file') for schedules have been found - nothing to do");
 		}
 		
-		if(urlNodes != null) {
+		if(urlNodes != null && !urlNodes.isEmpty()) {
 			for(Element urlNode : urlNodes) {
-				URL url = new URL(urlNode.getTextTrim());
-				File temp = File.createTempFile("workloadplanner", ".ics");
-				FileUtils.copyURLToFile(url, temp);
-				icsLocations.add(temp);
+				scheduleURLs.add(new URL(urlNode.getTextTrim()));
 			}
 		}
 		
@@ -125,6 +158,37 @@ public class ConfigReader {
 				}
 				
 				icsLocations.add(file);
+				scheduleFiles.add(file);
+			}
+		}
+		
+		/* read in the planning horizon (optional) */
+		Element horizonNode = calendarNode.getChild("horizon");
+		if(horizonNode != null) {
+			if(horizonNode.getAttributeValue("from") != null) {
+				horizonFrom = LocalDate.parse(horizonNode.getAttributeValue("from"));
+			}
+			
+			if(horizonNode.getAttributeValue("to") != null) {
+				horizonTo = LocalDate.parse(horizonNode.getAttributeValue("to"));
+			}
+			
+			if(horizonFrom != null && horizonTo != null && horizonFrom.isAfter(horizonTo)) {
+				throw new Exception("The attribute 'from' of the node 'horizon' must be before 'to'");
+			}
+		}
+		
+		/* read in the strategy placing the tasks (optional) */
+		Element strategyNode = calendarNode.getChild("strategy");
+		if(strategyNode != null) {
+			if(strategyNode.getAttributeValue("name") == null) {
+				throw new Exception("The node 'strategy' is missing the 'name' attribute");
+			}
+			
+			strategy = strategyNode.getAttributeValue("name");
+			
+			if(!Arrays.asList(SchedulingStrategy.NAMES).contains(strategy)) {
+				throw new Exception("The strategy '" + strategy + "' is unknown, use one of " + String.join(", ", SchedulingStrategy.NAMES));
 			}
 		}
 		
@@ -169,11 +233,18 @@ public class ConfigReader {
 			throw new Exception("No nodes 'assignment' have been found - nothing to do");
 		}
 		
+		//the created events and the kept placements are identified by the pattern and the name and type of the task
+		Set<String> patterns = new HashSet<String>();
+		
 		for(Element assignmentNode : assignmentNodes) {
 			if(assignmentNode.getAttributeValue("pattern") == null) {
 				throw new Exception("The attribute 'pattern' is missing");
 			}
 			
+			if(!patterns.add(assignmentNode.getAttributeValue("pattern"))) {
+				throw new Exception("The pattern '" + assignmentNode.getAttributeValue("pattern") + "' is used by more than one assignment");
+			}
+			
 			Assignment assignment = new Assignment(
 					assignmentNode.getAttributeValue("pattern"),
 					assignmentNode.getAttributeValue("travelhours") == null
@@ -187,6 +258,8 @@ public class ConfigReader {
 				throw new Exception("No nodes 'task' have been found in the assignement with the pattern '" + assignment.getRegex() + "'- nothing to do");
 			}
 			
+			Set<String> tasks = new HashSet<String>();
+			
 			for(Element taskNode : taskNodes) {
 				if(taskNode.getAttributeValue("name") == null) {
 					throw new Exception("The attribute 'name' is missing");
@@ -200,10 +273,14 @@ public class ConfigReader {
 					throw new Exception("The attribute 'hours' is missing");
 				}
 				
+				boolean isBefore = taskNode.getAttributeValue("type").equals("before");
+				if(!tasks.add(taskNode.getAttributeValue("name") + "\n" + isBefore)) {
+					throw new Exception("The task '" + taskNode.getAttributeValue("name") + "' is defined more than once " + (isBefore ? "before" : "after") + " the events of the pattern '" + assignment.getRegex() + "'");
+				}
 				
 				assignment.addTask(
 						taskNode.getAttributeValue("name"),
-						taskNode.getAttributeValue("type").equals("before"),
+						isBefore,
 						Integer.parseInt(taskNode.getAttributeValue("hours"))
 				);
 			}
@@ -222,6 +299,26 @@ public class ConfigReader {
 		return icsLocations;
 	}
 	
+	/**
+	 * Getter for the URLs of the schedules (node url)
+	 * @return list of the URLs in the order of the configuration
+	 * @throws Exception if the file cannot be found or parsed
+	 */
+	public List<URL> getScheduleURLs() throws Exception {
+		process();
+		return scheduleURLs;
+	}
+	
+	/**
+	 * Getter for the local schedules (node file)
+	 * @return list of the files in the order of the configuration
+	 * @throws Exception if the file cannot be found or parsed
+	 */
+	public List<File> getScheduleFiles() throws Exception {
+		process();
+		return scheduleFiles;
+	}
+	
 	/**
 	 * Getter for the name for the calendar which will be created to hold the overlap of Tasks and Vacancies
 	 * @return name of the calendar
@@ -232,6 +329,36 @@ public class ConfigReader {
 		return name;
 	}
 	
+	/**
+	 * Getter for the first day of the planning horizon
+	 * @return first day of the horizon or null if there is no lower bound
+	 * @throws Exception if the file cannot be found or parsed
+	 */
+	public LocalDate getHorizonFrom() throws Exception {
+		process();
+		return horizonFrom;
+	}
+	
+	/**
+	 * Getter for the last day of the planning horizon
+	 * @return last day of the horizon (inclusive) or null if there is no upper bound
+	 * @throws Exception if the file cannot be found or parsed
+	 */
+	public LocalDate getHorizonTo() throws Exception {
+		process();
+		return horizonTo;
+	}
+	
+	/**
+	 * Getter for the name of the strategy placing the tasks
+	 * @return name of the strategy (greedy if none is defined)
+	 * @throws Exception if the file cannot be found or parsed
+	 */
+	public String getStrategy() throws Exception {
+		process();
+		return strategy;
+	}
+	
 	/**
 	 * Getter for all defined Vacancies in the configuration file
 	 * @return all defined Vacancies
@@ -261,6 +388,8 @@ public class ConfigReader {
 		
 		System.out.println("Configuration file: " + file.getAbsolutePath());
 		System.out.println("Calendar name: " + name);
+		System.out.println("Horizon: " + (horizonFrom == null ? "-" : horizonFrom) + " to " + (horizonTo == null ? "-" : horizonTo));
+		System.out.println("Strategy: " + strategy);
 		
 		System.out.println("ICS location:");
 		icsLocations.stream().forEach(System.out::println);
@@ -1,40 +1,35 @@
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.IOException;
 
-import java.text.DateFormat;
+import java.nio.charset.StandardCharsets;
+
+import java.text.ParseException;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
-import java.time.format.FormatStyle;
 
 import net.fortuna.ical4j.data.CalendarBuilder;
-import net.fortuna.ical4j.data.CalendarOutputter;
 import net.fortuna.ical4j.model.Calendar;
-import net.fortuna.ical4j.model.ComponentList;
-import net.fortuna.ical4j.model.DateTime;
 import net.fortuna.ical4j.model.Property;
-import net.fortuna.ical4j.model.TimeZone;
-import net.fortuna.ical4j.model.TimeZoneRegistry;
-import net.fortuna.ical4j.model.TimeZoneRegistryFactory;
 import net.fortuna.ical4j.model.component.CalendarComponent;
 import net.fortuna.ical4j.model.component.VEvent;
-import net.fortuna.ical4j.model.component.VTimeZone;
-import net.fortuna.ical4j.model.property.CalScale;
 import net.fortuna.ical4j.model.property.DateProperty;
-import net.fortuna.ical4j.model.property.Name;
-import net.fortuna.ical4j.model.property.ProdId;
-import net.fortuna.ical4j.model.property.Uid;
-import net.fortuna.ical4j.model.property.Version;
-import net.fortuna.ical4j.model.property.XProperty;
 
 
 /**
@@ -44,9 +39,28 @@ import net.fortuna.ical4j.model.property.XProperty;
  *
  */
 public class DateCalculator {
-	private List<DateRange> reservedRanges;
+	/**
+	 * Reservations per day from which on the occupancy timeline is used in auto mode
+	 */
+	final static long DENSE_RESERVATIONS = 8;
+	
+	private ReservationIndex reservations;
 	private List<EventAssignment> eventAssignments;
 	boolean isVerbose = false;
+	int parallelism = Runtime.getRuntime().availableProcessors();
+	private SnapshotCache snapshots;
+	private SourceCache sources;
+	private boolean streaming = false;
+	private SchedulingStrategy strategy;
+	private long maxTime = Long.MAX_VALUE;
+	private String reservationBackend = "auto";
+	private long granularity = 15;
+	private long maxSlotChecks = Long.MAX_VALUE;
+	private LocalDate horizonFrom;
+	private LocalDate horizonTo;
+	private Metrics metrics = new Metrics();
+	private PlanningState state;
+	private EventFactory eventFactory = new EventFactory();
 	
 	/**
 	 * Constructor of DateCalculator
@@ -57,174 +71,551 @@ public class DateCalculator {
 	}
 	
 	/**
-	 * Parses the ICS files and fetches all relevant events
+	 * Setter for the amount of ICS files which are parsed at the same time
+	 * @param parallelism
+	 * @throws Exception if parallelism is less than 1
+	 */
+	public void setParallelism(int parallelism) {
+		if(parallelism < 1) {
+			throw new RuntimeException("The parallelism must be at least 1");
+		}
+		
+		this.parallelism = parallelism;
+	}
+	
+	/**
+	 * Setter for the cache of parsed ICS files
+	 * @param the snapshot cache or null to parse every file
+	 */
+	public void setSnapshotCache(SnapshotCache snapshots) {
+		this.snapshots = snapshots;
+	}
+	
+	/**
+	 * Setter for the parsed ICS files shared with other calculators
+	 * @param the shared events or null to read the files for this calculator only
+	 */
+	public void setSourceCache(SourceCache sources) {
+		this.sources = sources;
+	}
+	
+	/**
+	 * Overrides the strategy placing the tasks of the configuration
+	 * @param the strategy or null to use the strategy of the configuration
+	 */
+	public void setStrategy(SchedulingStrategy strategy) {
+		this.strategy = strategy;
+	}
+	
+	/**
+	 * Setter for the time a run may take. Once it is over the tasks are not placed anymore,
+	 * the hours which have not been placed yet are reported as missing
+	 * @param time in milliseconds
+	 * @throws Exception if the time is less than 1
+	 */
+	public void setMaxTime(long maxTime) {
+		if(maxTime < 1) {
+			throw new RuntimeException("The maximal time must be at least 1 millisecond");
+		}
+		
+		this.maxTime = maxTime;
+	}
+	
+	/**
+	 * Setter for the amount of slot checks a run may do. Once they are spent the tasks are not
+	 * placed anymore, the hours which have not been placed yet are reported as missing
+	 * @param amount of checks
+	 * @throws Exception if the amount is less than 1
+	 */
+	public void setMaxSlotChecks(long maxSlotChecks) {
+		if(maxSlotChecks < 1) {
+			throw new RuntimeException("The maximal amount of slot checks must be at least 1");
+		}
+		
+		this.maxSlotChecks = maxSlotChecks;
+	}
+	
+	/**
+	 * Setter for the backend keeping the reservations. "interval" keeps the exact timespans,
+	 * "bitset" an occupancy timeline of buckets (see BitsetReservations) and "auto" chooses
+	 * by the density of the calendar
+	 * @param name of the backend
+	 * @throws Exception if the backend is unknown
+	 */
+	public void setReservationBackend(String backend) {
+		if(!backend.equals("auto") && !backend.equals("interval") && !backend.equals("bitset")) {
+			throw new RuntimeException("Unknown reservation backend '" + backend + "', use one of auto, interval, bitset");
+		}
+		
+		this.reservationBackend = backend;
+	}
+	
+	/**
+	 * Setter for the length of the buckets of the occupancy timeline
+	 * @param length in minutes
+	 * @throws Exception if the length is less than 1 minute or does not divide a day
+	 */
+	public void setGranularity(long granularity) {
+		if(granularity < 1 || DateRange.MINUTES_PER_DAY % granularity != 0) {
+			throw new RuntimeException("The granularity must be at least 1 minute and divide a day into whole buckets");
+		}
+		
+		this.granularity = granularity;
+	}
+	
+	/**
+	 * Setter for the streaming mode. In streaming mode the ICS files are read line by line and
+	 * only the needed properties of the confirmed events are kept instead of the whole calendar
+	 * @param true to enable the streaming mode
+	 */
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+	
+	/**
+	 * Setter for the metrics which receive the time and counts of parsing, planning and writing
+	 * @param metrics
+	 */
+	public void setMetrics(Metrics metrics) {
+		this.metrics = metrics;
+	}
+	
+	/**
+	 * Setter for the state which keeps the placements between the runs
+	 * @param the state or null to plan every task again
+	 */
+	public void setPlanningState(PlanningState state) {
+		this.state = state;
+	}
+	
+	/**
+	 * Overrides the planning horizon of the configuration
+	 * @param first day of the horizon or null to use the value of the configuration
+	 * @param last day of the horizon (inclusive) or null to use the value of the configuration
+	 */
+	public void setHorizon(LocalDate from, LocalDate to) {
+		horizonFrom = from;
+		horizonTo = to;
+	}
+	
+	/**
+	 * Getter for the events matched by the last call of fetchEvents
+	 * @return the events with their assignments
+	 */
+	public List<EventAssignment> getEventAssignments() {
+		return eventAssignments;
+	}
+	
+	/**
+	 * Getter for the times reserved by the last call of fetchEvents and the placed tasks
+	 * @return the reservations
+	 */
+	public ReservationIndex getReservations() {
+		return reservations;
+	}
+	
+	/**
+	 * Parses the ICS files and fetches all relevant events. This is the first step of
+	 * calculateEvents, it is public so the steps can be measured on their own
 	 * @param retrieves from the reader all location of the ICS files
 	 * @throws Exception
 	 */
-	private void fetchEvents(ConfigReader reader) throws Exception {
-		/* parse ics file */
+	public void fetchEvents(ConfigReader reader) throws Exception {
 		eventAssignments = new ArrayList<EventAssignment>();
-		reservedRanges = new ArrayList<DateRange>();
+		IntervalReservations intervals = new IntervalReservations();
+		
+		AssignmentMatcher matcher = new AssignmentMatcher(reader.getAssignments());
+		List<File> paths = reader.getPathsToICS();
 		
-		for(File path : reader.getPathsToICS()) {
-			FileInputStream fin = new FileInputStream(path);
-			CalendarBuilder builder = new CalendarBuilder();
-			Calendar calendar = builder.build(fin);
-			fin.close();
+		/* events are only planned inside of the horizon */
+		LocalDate from = horizonFrom != null ? horizonFrom : reader.getHorizonFrom();
+		LocalDate to = horizonTo != null ? horizonTo : reader.getHorizonTo();
+		
+		if(from != null && to != null && from.isAfter(to)) {
+			throw new Exception("The start of the horizon must be before its end");
+		}
+		
+		DateRange horizon = new DateRange(
+				from == null ? Long.MIN_VALUE : DateRange.toMinutes(from.atStartOfDay()),
+				to == null ? Long.MAX_VALUE : DateRange.toMinutes(to.plusDays(1).atStartOfDay())
+		);
+		
+		/* parse ics files in parallel */
+		long started = System.nanoTime();
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, paths.size())));
+		
+		try {
+			List<Future<ParsedSchedule>> results = new ArrayList<>();
 			
-			/* fetch all relevant events */
-			ComponentList<VEvent> events = calendar.getComponents("VEVENT");
+			for(File path : paths) {
+				results.add(pool.submit(() -> parseSchedule(path, matcher, horizon)));
+			}
 			
-			for(VEvent event : events) {
-				//ignore unconfirmed events
-				if(event.getStatus() == null || !event.getStatus().getValue().equals("CONFIRMED")) {
-					continue;
-				}
+			/* merge the results in the order of the files */
+			for(Future<ParsedSchedule> result : results) {
+				ParsedSchedule schedule;
 				
-				reservedRanges.add(new DateRange(
-					event.getStartDate().getDate(),
-					event.getEndDate().getDate()
-				));
-				
-				//test if the summary/title matches a regex
-				if(event.getSummary() == null || event.getSummary().getValue().length() == 0) {
-					continue;
-				}
-				
-				for(Assignment assignment : reader.getAssignments()) {
-					if(event.getSummary().getValue().matches(assignment.getRegex())) {
-						reservedRanges.add(new DateRange(
-							event.getStartDate().getDate(),
-							event.getEndDate().getDate(),
-							assignment.getTravelHours()
-						));
-						
-						eventAssignments.add(new EventAssignment(event, assignment));
+				try {
+					schedule = result.get();
+				}catch(ExecutionException e) {
+					if(e.getCause() instanceof Exception) {
+						throw (Exception) e.getCause();
 					}
+					
+					throw e;
 				}
+				
+				intervals.addAll(schedule.getReservations());
+				eventAssignments.addAll(schedule.createEventAssignments());
 			}
+		}finally {
+			pool.shutdownNow();
 		}
 		
+		metrics.addTime("parse", System.nanoTime() - started);
+		
+		reservations = chooseReservations(intervals, reader.getVacancies());
+		
 		// sort ascending
 		eventAssignments.sort(
-				(a, b) -> a.getEvent().getStartDate().getDate()
-					.compareTo(b.getEvent().getStartDate().getDate())
+				(a, b) -> Long.compare(a.getEvent().getStart(), b.getEvent().getStart())
 		);
+		
+		//number the events occurring multiple times so their keys stay unique
+		Map<String, Integer> occurrences = new HashMap<>();
+		for(EventAssignment cm : eventAssignments) {
+			cm.setOccurrence(occurrences.merge(cm.getIdentity(), 1, Integer::sum));
+		}
 	}
 	
 	/**
-	 * Creates a new event based on a Task, EventAssignment and a DateRange
-	 * @param the Task which should occur
-	 * @param the assocation of Event and the corresponding Assignment
-	 * @param the DateRange for the task to occur
-	 * @param if the task gets splitted into multiple chunks/subtask the pageIdx will tell you which chunk gets used
-	 * @param total amount of chunks
-	 * @return a new VEvent for the occuring Task
+	 * Chooses the backend for the reservations. In auto mode the occupancy timeline is used if
+	 * the calendar has at least DENSE_RESERVATIONS reservations per day and nothing has to be
+	 * rounded to the buckets: the reservations, the start and end of every vacancy and the length
+	 * of an hour (the chunks consist of whole hours) are aligned to them. Only then both backends
+	 * place the tasks the same way
+	 * @param the reservations of the schedules
+	 * @param the vacancies the tasks are placed in
+	 * @return the given reservations or a timeline holding the same reservations
 	 */
-	private VEvent createEvent(Task type, EventAssignment cm, DateRange range, int pageIdx, int pageTotal) {
-		DateFormat formatter = DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.SHORT);
-		DateTimeFormatter dtformatter = DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM);
+	private ReservationIndex chooseReservations(IntervalReservations intervals, List<Vacancy> vacancies) {
+		List<DateRange> ranges = intervals.getReservations();
+		boolean bitset = reservationBackend.equals("bitset");
+		
+		if(reservationBackend.equals("auto") && !ranges.isEmpty()) {
+			long days = Math.max(1, (ranges.get(ranges.size() - 1).getEndMinutes() - ranges.get(0).getStartMinutes()) / DateRange.MINUTES_PER_DAY);
+			boolean aligned = DateRange.MINUTES_PER_HOUR % granularity == 0
+					&& ranges.stream().allMatch(
+							range -> range.getStartMinutes() % granularity == 0 && range.getEndMinutes() % granularity == 0
+					)
+					&& vacancies.stream().allMatch(
+							vacancy -> vacancy.getStart().toSecondOfDay() % (granularity * 60) == 0 && vacancy.getEnd().toSecondOfDay() % (granularity * 60) == 0
+					);
+			
+			bitset = aligned && ranges.size() >= DENSE_RESERVATIONS * days;
+		}
 		
-		String summary = type.getName();
-		Map<String, String> arguments = new HashMap<>();
+		if(!bitset) {
+			return intervals;
+		}
 		
-		arguments.put("page.index", String.valueOf(pageIdx));
-		arguments.put("page.total", String.valueOf(pageTotal));
+		metrics.count("reservations.bitset", 1);
 		
-		arguments.put("event.name", cm.getEvent().getName());
-		arguments.put("event.start", formatter.format(cm.getEvent().getStartDate().getDate()));
-		arguments.put("event.end", formatter.format(cm.getEvent().getEndDate().getDate()));
-		arguments.put("event.duration", String.valueOf(range.getDuration()));
+		BitsetReservations ret = new BitsetReservations(granularity);
+		ret.addAll(ranges);
+		return ret;
+	}
+	
+	/**
+	 * Reads a single ICS file and collects the reserved ranges and the events matching an assignment
+	 * @param location of the ICS file
+	 * @param the matcher for all assignments
+	 * @param the planning horizon
+	 * @return the reservations and matches found in the file
+	 * @throws Exception if the file cannot be read or parsed
+	 */
+	private ParsedSchedule parseSchedule(File path, AssignmentMatcher matcher, DateRange horizon) throws Exception {
+		ParsedSchedule schedule = new ParsedSchedule();
 		
-		arguments.put("from", range.getStart().format(dtformatter));
-		arguments.put("to", range.getEnd().format(dtformatter));
-		arguments.put("duration", String.valueOf(type.getDuration()));
+		//events around the horizon are kept since they limit the windows of the events inside
+		long lookback = EventAssignment.DEFAULT_WINDOW / 60000 + DateRange.MINUTES_PER_DAY;
+		long keepFrom = horizon.getStartMinutes() == Long.MIN_VALUE ? Long.MIN_VALUE : horizon.getStartMinutes() - lookback;
+		long keepTo = horizon.getEndMinutes() == Long.MAX_VALUE ? Long.MAX_VALUE : horizon.getEndMinutes() + lookback;
 		
-		for(String key : arguments.keySet()) {
-			String value = arguments.get(key);
-			summary = summary.replace("{" + key + "}", value);
-		}
+		//read, filtered, matched, the time spent on matching and expanded occurrences (added to the metrics at the end)
+		long[] counts = new long[5];
 		
-		VEvent event = new VEvent(
-				new DateTime(DateTime.from(range.getStart().atZone(ZoneId.systemDefault()).toInstant())),
-				new DateTime(DateTime.from(range.getEnd().atZone(ZoneId.systemDefault()).toInstant())),
-				summary
-		);
+		//recurring events are expanded after the whole file has been read since other events can replace their occurrences
+		List<SourceEvent> series = new ArrayList<>();
+		Map<String, Set<Long>> replaced = new HashMap<>();
 		
-		event.getProperties().add(new Uid(UUID.randomUUID().toString()));
+		Consumer<SourceEvent> receiver = event -> {
+			counts[0]++;
+			
+			//ignore unconfirmed events
+			if(!event.isConfirmed()) {
+				counts[1]++;
+				return;
+			}
+			
+			//ignore events far outside of the horizon
+			if(event.getEndMinutes() < keepFrom || event.getStartMinutes() >= keepTo) {
+				counts[1]++;
+				return;
+			}
+			
+			schedule.addReservation(event.getRange(0));
+			
+			//test if the summary/title matches a regex
+			if(event.getSummary() == null || event.getSummary().length() == 0) {
+				return;
+			}
+			
+			long matchStarted = System.nanoTime();
+			List<Assignment> assignments = matcher.match(event.getSummary());
+			counts[3] += System.nanoTime() - matchStarted;
+			
+			for(Assignment assignment : assignments) {
+				counts[2]++;
+				schedule.addReservation(event.getRange(assignment.getTravelHours()));
+				schedule.addMatch(event, assignment, event.getStartMinutes() >= horizon.getStartMinutes() && event.getStartMinutes() < horizon.getEndMinutes());
+			}
+		};
+		
+		readEvents(path, event -> {
+			if(event.getRecurrenceId() != null && event.getUid() != null) {
+				replaced.computeIfAbsent(event.getUid(), key -> new HashSet<>()).add(event.getRecurrenceId());
+			}
+			
+			if(event.isRecurring()) {
+				series.add(event);
+			}else {
+				receiver.accept(event);
+			}
+		});
 		
-		TimeZoneRegistry registry = TimeZoneRegistryFactory.getInstance().createRegistry();
-		TimeZone timezone = registry.getTimeZone("GMT");
-		VTimeZone tz = timezone.getVTimeZone();
+		for(SourceEvent event : series) {
+			if(!event.isConfirmed()) {
+				counts[0]++;
+				counts[1]++;
+				continue;
+			}
+			
+			long duration = event.getEnd() - event.getStart();
+			Iterator<SourceEvent> occurrences;
+			
+			try {
+				occurrences = new Recurrence(
+						event,
+						replaced.getOrDefault(event.getUid(), Collections.emptySet()),
+						keepFrom == Long.MIN_VALUE ? Long.MIN_VALUE : toMillis(keepFrom) - duration,
+						keepTo == Long.MAX_VALUE ? Long.MAX_VALUE : toMillis(keepTo)
+				);
+			}catch(ParseException e) {
+				throw new Exception("Invalid RRULE '" + event.getRRule() + "' of the event '" + event.getSummary() + "' in " + path, e);
+			}
+			
+			while(occurrences.hasNext()) {
+				counts[4]++;
+				receiver.accept(occurrences.next());
+			}
+		}
 		
-		event.getProperties().add(tz.getTimeZoneId());
+		metrics.count("events.read", counts[0]);
+		metrics.count("events.expanded", counts[4]);
+		metrics.count("events.filtered", counts[1]);
+		metrics.count("events.matched", counts[2]);
+		metrics.addTime("match", counts[3]);
 		
-		return event;
+		return schedule;
+	}
+	
+	/**
+	 * Converts minutes in the local time zone to an instant
+	 * @param minutes (see DateRange)
+	 * @return milliseconds since the epoch
+	 */
+	private static long toMillis(long minutes) {
+		return DateRange.toLocalDateTime(minutes).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
 	}
 	
 	/**
-	 * Finds an overlap between a Task and the vacancy
-	 * @param objects holding the found overlap
-	 * @param the available Vacancy
-	 * @param the EventAssignment which contains the task 
-	 * @param the Task which a overlapped is searched for
-	 * @param starting DateTime for the range to search an overlap
-	 * @param end DateTime for the range to search an overlap
+	 * Reads all events of an ICS file. If the file is shared with other calculators
+	 * its events are only read once
+	 * @param location of the ICS file
+	 * @param receives each event of the file
+	 * @throws Exception if the file cannot be read or parsed
 	 */
-	private void processEvent(List<CalendarComponent> ret, List<Vacancy> vacancies, EventAssignment cm, Task type, LocalDateTime from, LocalDateTime to) {
-		DateFormat formatter = DateFormat.getDateTimeInstance();
-		int hours = type.getDuration();
+	private void readEvents(File path, Consumer<SourceEvent> consumer) throws Exception {
+		if(sources == null) {
+			loadEvents(path, consumer);
+			return;
+		}
+		
+		boolean[] loaded = new boolean[] {false};
+		List<SourceEvent> events = sources.get(path, streaming, () -> {
+			List<SourceEvent> ret = new ArrayList<>();
+			loadEvents(path, ret::add);
+			loaded[0] = true;
+			return ret;
+		});
 		
-		List<DateRange> pages = new LinkedList<>();
+		if(!loaded[0]) {
+			metrics.count("schedules.shared", 1);
+		}
 		
-		for(Vacancy vakanz : vacancies) {
-			if(hours <= 0) {
-				break;
+		events.forEach(consumer);
+	}
+	
+	/**
+	 * Loads all events of an ICS file. If the file did not change since the last run
+	 * the events are loaded from the snapshot instead of parsing the file
+	 * @param location of the ICS file
+	 * @param receives each event of the file
+	 * @throws Exception if the file cannot be read or parsed
+	 */
+	private void loadEvents(File path, Consumer<SourceEvent> consumer) throws Exception {
+		long length = path.length();
+		long lastModified = path.lastModified();
+		
+		if(snapshots != null) {
+			List<SourceEvent> events = snapshots.load(path, streaming);
+			if(events != null) {
+				metrics.count("schedules.snapshot", 1);
+				events.forEach(consumer);
+				return;
 			}
-			
-			LocalDateTime date = from;
-			
-			while(hours > 0 && date.isBefore(to)) {
-				if(!vakanz.sameWeekday(date)) {
-					date = increaseDateByDay(date);
-					continue;
-				}
-				
-				DateRange possibleRange = vakanz.getRange(date);
-				List<DateRange> ranges = possibleRange.substractCollisions(reservedRanges);
-				
-				if(ranges.isEmpty()) {
-					date = increaseDateByDay(date);
-					continue;
-				}
-				
-				possibleRange = ranges.get(0);
+		}
+		
+		//collect the events for the snapshot while passing them on
+		List<SourceEvent> events = snapshots == null ? null : new ArrayList<>();
+		Consumer<SourceEvent> receiver = events == null ? consumer : consumer.andThen(events::add);
+		
+		metrics.count("schedules.parsed", 1);
+		
+		if(streaming) {
+			new StreamingEventReader(true).read(path, receiver);
+		}else {
+			try(FileInputStream fin = new FileInputStream(path)) {
+				CalendarBuilder builder = new CalendarBuilder(new PrefixedTimeZoneRegistry());
+				Calendar calendar = builder.build(fin);
 				
-				if(possibleRange.getDuration() > hours) {
-					possibleRange.setDuration(hours);
+				for(VEvent event : calendar.<VEvent>getComponents("VEVENT")) {
+					receiver.accept(SourceEvent.of(event));
 				}
-				
-				hours -= possibleRange.getDuration();
-				
-				reservedRanges.add(possibleRange);
-				
-				pages.add(possibleRange);
 			}
 		}
 		
+		if(snapshots != null) {
+			try {
+				snapshots.store(path, streaming, length, lastModified, events);
+			}catch(IOException e) {
+				//the snapshot only saves the parsing of the next run
+				if(isVerbose) {
+					System.out.println("The snapshot of '" + path + "' cannot be stored: " + e.getMessage());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Key of a task of an EventAssignment which stays the same between runs. It is unique since
+	 * ConfigReader rejects two assignments with the same pattern and two tasks of an assignment
+	 * with the same name and type
+	 * @param the EventAssignment
+	 * @param the Task
+	 * @return the key
+	 */
+	private static String taskKey(EventAssignment cm, Task type) {
+		return cm.getKey() + "\n" + type.getName() + "\n" + (type.isBefore() ? "before" : "after");
+	}
+	
+	/**
+	 * Creates the UID of a created event from the key of the task. The same task and page
+	 * always gets the same UID, so calendar clients can update the event in place
+	 * @param the EventAssignment
+	 * @param the Task
+	 * @param the page index of the chunk or "note" for the note about missing hours
+	 * @return the UID
+	 */
+	private static String uid(EventAssignment cm, Task type, String page) {
+		return UUID.nameUUIDFromBytes((taskKey(cm, type) + "\n" + page).getBytes(StandardCharsets.UTF_8)).toString();
+	}
+	
+	/**
+	 * Creates the events for the placed chunks of a task and a note for the hours which could not be placed
+	 * @param receives the created events
+	 * @param the EventAssignment which contains the task
+	 * @param the Task which has been placed
+	 * @param the range the task has been placed in
+	 * @param the placed chunks in chronological order
+	 * @param amount of hours which could not be placed
+	 * @return the placed chunks
+	 */
+	private PlanningState.Placement createEvents(List<CalendarComponent> ret, EventAssignment cm, Task type, DateRange window, List<DateRange> pages, int hours) {
+		metrics.count("chunks.placed", pages.size());
 		
 		int total = pages.size();
 		if(hours > 0) {
+			metrics.count("hours.missing", hours);
+			
 			//we are not able to find free space for the given worktype - add a note and tell the user that he has not enough time
-			System.out.println("Missing vacancy (" + hours + "h) for " + type.getName() + " " + formatter.format(cm.getEvent().getStartDate().getDate()));
-			ret.add(createEvent(type, cm, new DateRange(cm.getEvent().getStartDate().getDate(), hours), total, ++total));
+			System.out.println("Missing vacancy (" + hours + "h) for " + type.getName() + " " + eventFactory.format(cm.getEvent().getStartDate()));
+			ret.add(eventFactory.createEvent(type, cm, new DateRange(cm.getEvent().getStartDate(), hours), total, ++total, uid(cm, type, "note")));
 		}
 		
-		int idx = 0;
-		for(DateRange range : pages) {
-			idx++;
-			ret.add(createEvent(type, cm, range, idx, total));
+		DateRange[] chunks = pages.toArray(new DateRange[pages.size()]);
+		String[] uids = new String[chunks.length];
+		
+		for(int idx = 0; idx < chunks.length; idx++) {
+			uids[idx] = uid(cm, type, String.valueOf(idx + 1));
+			ret.add(eventFactory.createEvent(type, cm, chunks[idx], idx + 1, total, uids[idx]));
 		}
+		
+		return new PlanningState.Placement(cm.getEvent(), window, type.getDuration(), hours, chunks, uids);
+	}
+	
+	/**
+	 * Describes the settings a run places the tasks with. The placements of the last run are
+	 * dropped if they changed
+	 * @param the ConfigReader of the run
+	 * @param the strategy placing the tasks
+	 * @return strategy, reservation backend and horizon as text
+	 * @throws Exception if the horizon cannot be read from the configuration
+	 */
+	private String settings(ConfigReader reader, SchedulingStrategy placing) throws Exception {
+		return placing.getClass().getName()
+				+ " " + (reservations instanceof BitsetReservations ? "bitset " + granularity : "interval")
+				+ " " + (horizonFrom != null ? horizonFrom : reader.getHorizonFrom())
+				+ " " + (horizonTo != null ? horizonTo : reader.getHorizonTo());
+	}
+	
+	/**
+	 * Reserves the chunks of the last run again if the task has been planned from the same inputs
+	 * and none of the chunks collides with the current reservations
+	 * @param the EventAssignment which contains the task
+	 * @param the Task which has been placed
+	 * @param the range the task is placed in
+	 * @param the placement of the last run (can be null)
+	 * @return true if the placement has been reused
+	 */
+	private boolean reusePlacement(EventAssignment cm, Task type, DateRange window, PlanningState.Placement previous) {
+		if(previous == null || !previous.matches(cm.getEvent(), window, type.getDuration())) {
+			return false;
+		}
+		
+		DateRange[] chunks = previous.getChunks();
+		for(DateRange chunk : chunks) {
+			if(!reservations.isFree(chunk.getStartMinutes(), chunk.getEndMinutes())) {
+				return false;
+			}
+		}
+		
+		for(DateRange chunk : chunks) {
+			reservations.add(chunk);
+		}
+		
+		return true;
 	}
 	
 	/**
@@ -234,98 +625,204 @@ public class DateCalculator {
 	 * @throws Exception
 	 */
 	public List<CalendarComponent > calculateEvents(ConfigReader reader) throws Exception {
-		fetchEvents(reader);
-		
 		List<CalendarComponent> ret = new ArrayList<CalendarComponent>();
+		calculateEvents(reader, ret::add);
+		return ret;
+	}
+	
+	/**
+	 * Finds all overlapping between all tasks and vacancies and hands over the events in the
+	 * order of the tasks as soon as they have been placed
+	 * @param the ConfigReader containing all the Assignments, Task and Events
+	 * @param receives the found overlap of Task and Vacancy
+	 * @throws Exception if the events cannot be read or the consumer fails
+	 */
+	public void calculateEvents(ConfigReader reader, ComponentConsumer consumer) throws Exception {
+		Budget budget = new Budget(maxTime, maxSlotChecks);
+		
+		fetchEvents(reader);
 		
-		if(eventAssignments.isEmpty()) {
+		if(eventAssignments.stream().noneMatch(EventAssignment::isPlanned)) {
 			System.out.println("No assignments are matching any of the given events!");
-			return ret;
+			return;
 		}
 		
+		long started = System.nanoTime();
+		long consumed = 0;
+		List<Vacancy> vacancies = reader.getVacancies();
+		
+		//tasks in the order they are planned
+		List<PlannedTask> tasks = new ArrayList<>();
+		
 		for(EventAssignment cm : eventAssignments) {
+			if(!cm.isPlanned()) {
+				continue;
+			}
+			
 			for(Task type : cm.getAssignment().getTasksBefore()) {
-				DateRange r = cm.beforeRange();
-				processEvent(ret, reader.getVacancies(), cm, type, r.getStart(), r.getEnd());
+				tasks.add(new PlannedTask(cm, type, cm.beforeRange()));
 			}
 			
 			for(Task type : cm.getAssignment().getTasksAfter()) {
-				DateRange r = cm.afterRange();
-				processEvent(ret, reader.getVacancies(), cm, type, r.getStart(), r.getEnd());
+				tasks.add(new PlannedTask(cm, type, cm.afterRange()));
 			}
 		}
 		
-		return ret;
-	}
-	
-	/**
-	 * Increasing the given date by one day and removes the hours, minutes and seconds portion
-	 * @param the date which should be increase by one day
-	 * @return date increased by one day
-	 */
-	private LocalDateTime increaseDateByDay(LocalDateTime initialDate) {
-		initialDate.minusHours(initialDate.getHour());
-		initialDate.minusMinutes(initialDate.getMinute());
-		initialDate.minusSeconds(initialDate.getSecond());
-		initialDate.minusNanos(initialDate.getNano());
+		SchedulingStrategy placing = strategy != null ? strategy : SchedulingStrategy.of(reader.getStrategy());
 		
-		return initialDate.plusDays(1);
-	}
-	
-	/**
-	 * Finds all overlapping Tasks and Vacancies and saves them as an ICS
-	 * @param the ConfigReader which contains all the informations
-	 * @param the location to store the file for found overlap
-	 * @return true the file can be saved
-	 * @throws Exception
-	 */
-	public boolean calculateAndSave(ConfigReader reader, File location) throws Exception {
-		List<CalendarComponent> components = calculateEvents(reader);
-		
-		if(components.isEmpty()) {
-			System.out.println("No events has been generated!");
-			return false;
+		//keep the placements of the last run which are not affected by changes first
+		if(state != null) {
+			state.begin(vacancies, settings(reader, placing));
+			
+			long reused = 0;
+			for(PlannedTask task : tasks) {
+				PlanningState.Placement previous = state.getPrevious(task.key);
+				
+				if(reusePlacement(task.cm, task.type, task.window, previous)) {
+					state.put(task.key, previous);
+					task.reused = previous;
+					reused++;
+				}
+			}
+			
+			metrics.count("tasks.reused", reused);
 		}
 		
+		//plan the remaining tasks around them
+		List<Demand> demands = new ArrayList<>();
 		
-		//create basic calendar
-		Calendar calendar = new Calendar();
-		
-		calendar.getProperties().add(new ProdId("-//" + App.CREATOR + "//" + App.APPNAME + " " + App.VERSION + "//EN"));
-		calendar.getProperties().add(Version.VERSION_2_0);
-		calendar.getProperties().add(CalScale.GREGORIAN);
+		for(PlannedTask task : tasks) {
+			if(task.reused == null) {
+				task.demand = new Demand(task.window, task.type.getDuration());
+				demands.add(task.demand);
+			}
+		}
 		
-		//add name
-		calendar.getProperties().add(new Name(reader.getName()));
-		calendar.getProperties().add(new XProperty("X-WR-CALNAME", reader.getName()));
+		placing.place(demands, vacancies, reservations, metrics, budget);
 		
-		//add events/notes to calendar
-		if(isVerbose) {
-			System.out.println("The following events will be created:");
+		if(budget.hasStopped()) {
+			long incomplete = demands.stream().filter(demand -> demand.getMissing() > 0).count();
+			metrics.count("plan.truncated", 1);
+			
+			System.out.println("The planning has been truncated after " + budget.getChecks() + " slot checks, " + incomplete + " of " + demands.size() + " tasks are missing hours");
 		}
 		
-		components.forEach(c -> {
-			if(isVerbose) {
-				System.out.println(c.getProperty(Property.SUMMARY).getValue());
+		List<CalendarComponent> events = new ArrayList<>();
+		
+		for(PlannedTask task : tasks) {
+			events.clear();
+			
+			if(task.reused != null) {
+				DateRange[] chunks = task.reused.getChunks();
 				
-				DateProperty prop = ((DateProperty) c.getProperty(Property.DTSTART));
-				System.out.println(prop.getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime());
+				for(int idx = 0; idx < chunks.length; idx++) {
+					events.add(eventFactory.createEvent(task.type, task.cm, chunks[idx], idx + 1, chunks.length, task.reused.getUids()[idx]));
+				}
+			}else {
+				PlanningState.Placement placement = createEvents(events, task.cm, task.type, task.window, task.demand.getChunks(), task.demand.getMissing());
 				
-				prop = ((DateProperty) c.getProperty(Property.DTEND));
-				System.out.println(prop.getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime());
-				System.out.println();
+				if(state != null) {
+					state.put(task.key, placement);
+				}
 			}
 			
-			calendar.getComponents().add(c);
-		});
+			long handOver = System.nanoTime();
+			for(CalendarComponent event : events) {
+				consumer.accept(event);
+			}
+			
+			consumed += System.nanoTime() - handOver;
+		}
 		
+		if(state != null) {
+			state.commit();
+		}
 		
-		//write calendar to file
-		FileOutputStream fout = new FileOutputStream(location);
-
-		CalendarOutputter outputter = new CalendarOutputter();
-		outputter.output(calendar, fout);
+		metrics.addTime("plan", System.nanoTime() - started - consumed);
+	}
+	
+	/**
+	 * Finds all overlapping Tasks and Vacancies and saves them as an ICS. The events are
+	 * written while they are planned and the file is replaced once it is complete
+	 * @param the ConfigReader which contains all the informations
+	 * @param the location to store the file for found overlap
+	 * @return true the file can be saved
+	 * @throws Exception
+	 */
+	public boolean calculateAndSave(ConfigReader reader, File location) throws Exception {
+		long[] written = new long[] {0};
+		
+		long started = System.nanoTime();
+		try(CalendarWriter writer = new CalendarWriter(location, reader.getName())) {
+			written[0] += System.nanoTime() - started;
+			
+			calculateEvents(reader, c -> {
+				if(isVerbose) {
+					if(writer.getCount() == 0) {
+						System.out.println("The following events will be created:");
+					}
+					
+					System.out.println(c.getProperty(Property.SUMMARY).getValue());
+					
+					DateProperty prop = ((DateProperty) c.getProperty(Property.DTSTART));
+					System.out.println(prop.getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime());
+					
+					prop = ((DateProperty) c.getProperty(Property.DTEND));
+					System.out.println(prop.getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime());
+					System.out.println();
+				}
+				
+				//add events/notes to calendar
+				long writing = System.nanoTime();
+				writer.write(c);
+				written[0] += System.nanoTime() - writing;
+			});
+			
+			if(writer.getCount() == 0) {
+				System.out.println("No events has been generated!");
+				return false;
+			}
+			
+			long committing = System.nanoTime();
+			writer.commit();
+			written[0] += System.nanoTime() - committing;
+			
+			metrics.addTime("output", written[0]);
+			metrics.count("events.created", writer.getCount());
+		}
 		
 		return true;
 	}
+	
+	/**
+	 * Receives the events of calculateEvents
+	 */
+	public interface ComponentConsumer {
+		/**
+		 * Handles a created event or note
+		 * @param the event or note
+		 * @throws Exception if the event cannot be handled
+		 */
+		void accept(CalendarComponent component) throws Exception;
+	}
+	
+	/**
+	 * A task of an event together with the window it has to be placed in
+	 */
+	private static class PlannedTask {
+		EventAssignment cm;
+		Task type;
+		DateRange window;
+		String key;
+		PlanningState.Placement reused;
+		Demand demand;
+		
+		PlannedTask(EventAssignment cm, Task type, DateRange window) {
+			this.cm = cm;
+			this.type = type;
+			this.window = window;
+			
+			key = taskKey(cm, type);
+		}
+	}
 }
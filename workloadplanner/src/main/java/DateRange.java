@@ -1,21 +1,36 @@
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 import java.util.Date;
 
-import java.time.temporal.ChronoUnit;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 
 /**
- * The DateRange Class represant a timespan defined by two LocalDateTime
- * 
+ * The DateRange Class represant a timespan defined by two points in local time.
+ * Both points are stored as minutes since 1970-01-01T00:00 (local time) which makes
+ * comparisons and arithmetic free of any object allocation
+ *
  * @author Matthieu Riolo
  *
  */
 public class DateRange {
-	private LocalDateTime start;
-	private LocalDateTime end;
+	final static long MINUTES_PER_HOUR = 60;
+	final static long MINUTES_PER_DAY = 24 * MINUTES_PER_HOUR;
+	
+	private long start;
+	private long end;
+	
+	/**
+	 * Constructor with parameter start and end in minutes since 1970-01-01T00:00 (local time)
+	 * 
+	 * @param from
+	 * @param to
+	 * @throws Exception if `from` is after `to`
+	 */
+	public DateRange(long from, long to) {
+		initRange(from, to);
+	}
 	
 	/**
 	 * Constructor with parameter start and end
@@ -25,20 +40,18 @@ public class DateRange {
 	 * @throws Exception if `from` is equal or after `to`
 	 */
 	public DateRange(LocalDateTime from, LocalDateTime to) {
-		initRange(from, to);
+		initRange(toMinutes(from), toMinutes(to));
 	}
 	
 	/**
 	 * Construct with parameter start and end but for the deprecated type java.util.Date
 	 * 
-	 * @param from 
+	 * @param from
 	 * @param to
 	 * @throws Exception if `from` is equal or after `to`
 	 */
 	public DateRange(Date from, Date to) {
-		LocalDateTime f = convertDateToLocaleDateTime(from);
-		LocalDateTime t = convertDateToLocaleDateTime(to);
-		initRange(f, t);
+		initRange(toMinutes(from), toMinutes(to));
 	}
 	
 	/**
@@ -49,9 +62,8 @@ public class DateRange {
 	 * @throws Exception if `from` is equal or after `to`
 	 */
 	public DateRange(Date from, long duration) {
-		LocalDateTime f = convertDateToLocaleDateTime(from);
-		LocalDateTime t = f.plusHours(duration);
-		initRange(f, t);
+		long f = toMinutes(from);
+		initRange(f, f + duration * MINUTES_PER_HOUR);
 	}
 	
 	/**
@@ -62,27 +74,55 @@ public class DateRange {
 	 * @throws Exception if `from` is equal or after `to`
 	 */
 	public DateRange(Date from, Date to, long tolerance) {
-		LocalDateTime f = convertDateToLocaleDateTime(from);
-		LocalDateTime t = convertDateToLocaleDateTime(to);
-		
-		f = f.minusHours(tolerance);
-		t = t.plusHours(tolerance);
-		
-		initRange(f, t);
+		initRange(
+			toMinutes(from) - tolerance * MINUTES_PER_HOUR,
+			toMinutes(to) + tolerance * MINUTES_PER_HOUR
+		);
 	}
 	
 	/**
-	 * Converts java.util.Date to java.time.LocalDateTime
+	 * Converts java.time.LocalDateTime to minutes since 1970-01-01T00:00 (seconds are cut off)
 	 * 
 	 * @param date
 	 * @return the converted date
 	 */
-	private LocalDateTime convertDateToLocaleDateTime(Date date) {
-		return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
+	public static long toMinutes(LocalDateTime date) {
+		return Math.floorDiv(date.toEpochSecond(ZoneOffset.UTC), 60);
+	}
+	
+	/**
+	 * Converts java.util.Date to minutes since 1970-01-01T00:00 in the local time zone
+	 * 
+	 * @param date
+	 * @return the converted date
+	 */
+	public static long toMinutes(Date date) {
+		return toMinutes(date.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime());
+	}
+	
+	/**
+	 * Converts minutes since 1970-01-01T00:00 to java.time.LocalDateTime
+	 * 
+	 * @param minutes
+	 * @return the converted date
+	 */
+	public static LocalDateTime toLocalDateTime(long minutes) {
+		return LocalDateTime.ofEpochSecond(minutes * 60, 0, ZoneOffset.UTC);
+	}
+	
+	/**
+	 * Weekday of the given minute (monday = 1, sunday = 7)
+	 * 
+	 * @param minutes since 1970-01-01T00:00
+	 * @return weekday of the date
+	 */
+	public static int weekday(long minutes) {
+		//1970-01-01 was a thursday
+		return (int) Math.floorMod(Math.floorDiv(minutes, MINUTES_PER_DAY) + 3, 7) + 1;
 	}
 	
-	private void initRange(LocalDateTime from, LocalDateTime to) {
-		if(from.isAfter(to)) {
+	private void initRange(long from, long to) {
+		if(from > to) {
 			throw new RuntimeException("Param from must be before to");
 		}
 		
@@ -97,17 +137,7 @@ public class DateRange {
 	 * @return true if the given range is inside this range
 	 */
 	public boolean insideRange(DateRange range) {
-		return (
-					range.getStart().isBefore(getStart())
-					||
-					range.getStart().equals(getStart())
-				)
-				&&
-				(
-					range.getEnd().isAfter(getEnd())
-					||
-					range.getEnd().equals(getEnd())
-				);
+		return range.start <= start && range.end >= end;
 	}
 	
 	/**
@@ -117,11 +147,9 @@ public class DateRange {
 	 * @return true if there is an overlap
 	 */
 	public boolean collision(DateRange range) {
-		return (collision(range.getStart()) || collision(range.getEnd()))
+		return (range.start < end && start < range.end)
 				||
-				(range.collision(getStart()) || range.collision(getEnd()))
-				||
-				(range.getStart().equals(getStart()) && range.getEnd().equals(getEnd()))
+				(range.start == start && range.end == end)
 		;
 	}
 	
@@ -132,24 +160,52 @@ public class DateRange {
 	 * @return true if the given date is between start and end
 	 */
 	public boolean collision(LocalDateTime date) {
-		return date.isAfter(getStart()) && date.isBefore(getEnd());
+		return collision(toMinutes(date));
+	}
+	
+	/**
+	 * Tests if the given minute is between start and end (both exclusive)
+	 * 
+	 * @param minutes since 1970-01-01T00:00
+	 * @return true if the given minute is between start and end
+	 */
+	public boolean collision(long minutes) {
+		return minutes > start && minutes < end;
 	}
 	
 	/**
 	 * Getter for start property
 	 * 
-	 * @return initialized start LocalDateTime
+	 * @return start as LocalDateTime
 	 */
 	public LocalDateTime getStart() {
-		return start;
+		return toLocalDateTime(start);
 	}
-
+	
 	/**
 	 * Getter for end property
 	 * 
-	 * @return initialized end LocalDateTime
+	 * @return end as LocalDateTime
 	 */
 	public LocalDateTime getEnd() {
+		return toLocalDateTime(end);
+	}
+	
+	/**
+	 * Getter for start property
+	 * 
+	 * @return start in minutes since 1970-01-01T00:00
+	 */
+	public long getStartMinutes() {
+		return start;
+	}
+	
+	/**
+	 * Getter for end property
+	 * 
+	 * @return end in minutes since 1970-01-01T00:00
+	 */
+	public long getEndMinutes() {
 		return end;
 	}
 	
@@ -159,7 +215,7 @@ public class DateRange {
 	 * @return timespan between start and end as number representing hours
 	 */
 	public long getDuration() {
-		return start.until(end, ChronoUnit.HOURS);
+		return (end - start) / MINUTES_PER_HOUR;
 	}
 	
 	/**
@@ -172,10 +228,10 @@ public class DateRange {
 			throw new RuntimeException("hours must be more than 0");
 		}
 		
-		end = start.plus(hours, ChronoUnit.HOURS);
+		end = start + hours * MINUTES_PER_HOUR;
 	}
-
-
+	
+	
 	/**
 	 * Removes if the given range collides with this range subtract that part
 	 * 
@@ -184,61 +240,24 @@ public class DateRange {
 	 * @throws Exception if the constructor of DateRange fails or if there is an internal failure
 	 */
 	public List<DateRange> substractCollisions(List<DateRange> ranges) {
-		List<DateRange> looper = new ArrayList<DateRange>();
-		looper.add(this);
-		boolean hasCollision;
-		
+		IntervalReservations collisions = new IntervalReservations();
 		
-		do {
-			hasCollision = false;
-			List<DateRange> tmp = new ArrayList<DateRange>();
-			
-			for(DateRange r : looper) {
-				boolean coll = false;
-				
-				for(DateRange range : ranges) {
-					if(range.collision(r)) {
-						hasCollision = coll = true;
-						
-						if(r.insideRange(range)) {
-							//remove it => do not add it to our new list
-						}else if(range.insideRange(r)) {
-							//split it
-							tmp.add(new DateRange(r.getStart(), range.getStart()));
-							tmp.add(new DateRange(range.getEnd(), r.getEnd()));
-						}else {
-							//substract it
-							if(r.collision(range.getEnd())) {
-								tmp.add(new DateRange(range.getEnd(), r.getEnd()));
-							}else if(r.collision(range.getStart())) {
-								tmp.add(new DateRange(r.getStart(), range.getStart()));
-							}else {
-								
-								System.out.println(r.getStart() + " " + r.getEnd());
-								System.out.println(range.getStart() + " " + range.getEnd());
-								
-								throw new RuntimeException("Internal logic error");
-							}
-						}
-						
-						break;
-					}
-				}
-				
-				if(!coll) {
-					tmp.add(r);
-				}
+		for(DateRange range : ranges) {
+			if(collision(range)) {
+				collisions.add(range.start, range.end);
 			}
-			
-			looper = tmp;
-		}while(hasCollision);
-		
+		}
 		
 		//filter away all elements which dont have a duration of 0>
-		return new ArrayList<DateRange>(
-				looper.stream()
-				.filter(range -> range.getDuration() > 0)
-				.collect(Collectors.toList())
-		);
+		List<DateRange> ret = new ArrayList<DateRange>();
+		long cursor = collisions.findFree(start, end, MINUTES_PER_HOUR);
+		
+		while(cursor != ReservationIndex.NONE) {
+			long to = collisions.freeEnd(cursor, end);
+			ret.add(new DateRange(cursor, to));
+			cursor = collisions.findFree(to, end, MINUTES_PER_HOUR);
+		}
+		
+		return ret;
 	}
 }
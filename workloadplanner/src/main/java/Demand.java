@@ -0,0 +1,69 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hours of a task which have to be placed inside of a window. A SchedulingStrategy stores
+ * the placed chunks and the hours it could not place
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class Demand {
+	private DateRange window;
+	private int hours;
+	private List<DateRange> chunks = new ArrayList<>();
+	private int missing;
+	
+	/**
+	 * Constructor of Demand
+	 * @param the range the hours have to be placed in
+	 * @param amount of hours
+	 */
+	public Demand(DateRange window, int hours) {
+		this.window = window;
+		this.hours = hours;
+		this.missing = hours;
+	}
+	
+	/**
+	 * Getter for the window
+	 * @return the range the hours have to be placed in
+	 */
+	public DateRange getWindow() {
+		return window;
+	}
+	
+	/**
+	 * Getter for the amount of hours
+	 * @return amount of hours to place
+	 */
+	public int getHours() {
+		return hours;
+	}
+	
+	/**
+	 * Getter for the placed chunks
+	 * @return the chunks in chronological order
+	 */
+	public List<DateRange> getChunks() {
+		return chunks;
+	}
+	
+	/**
+	 * Getter for the hours which could not be placed
+	 * @return amount of hours
+	 */
+	public int getMissing() {
+		return missing;
+	}
+	
+	/**
+	 * Stores the result of the placement
+	 * @param the placed chunks in chronological order
+	 * @param amount of hours which could not be placed
+	 */
+	public void setPlacement(List<DateRange> chunks, int missing) {
+		this.chunks = chunks;
+		this.missing = missing;
+	}
+}
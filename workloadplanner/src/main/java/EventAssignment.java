@@ -1,7 +1,5 @@
 import java.util.Date;
 
-import net.fortuna.ical4j.model.component.VEvent;
-
 /**
  * Class which associates an event with an assignment (tasks)
  * 
@@ -9,17 +7,35 @@ import net.fortuna.ical4j.model.component.VEvent;
  *
  */
 public class EventAssignment {
-	private VEvent event;
+	/**
+	 * Timespan used for the window before the first and after the last event in milliseconds (2 weeks)
+	 */
+	final static long DEFAULT_WINDOW = 60 * 60 * 24 * 7 * 2 * 1000;
+	
+	private SourceEvent event;
 	private Assignment assignment;
+	private boolean planned;
+	private int occurrence = 1;
 	
 	/**
 	 * Constructor for EventAssignment
-	 * @param the VEvent which matches the regex from the assignment
+	 * @param the event which matches the regex from the assignment
 	 * @param the Assignment which matches the event
 	 */
-	public EventAssignment(VEvent event, Assignment assignment) {
+	public EventAssignment(SourceEvent event, Assignment assignment) {
+		this(event, assignment, true);
+	}
+	
+	/**
+	 * Constructor for EventAssignment
+	 * @param the event which matches the regex from the assignment
+	 * @param the Assignment which matches the event
+	 * @param false if the event only serves as neighbour for the windows of other events (outside of the planning horizon)
+	 */
+	public EventAssignment(SourceEvent event, Assignment assignment, boolean planned) {
 		this.event = event;
 		this.assignment = assignment;
+		this.planned = planned;
 		
 		assignment.addEvent(event);
 	}
@@ -29,8 +45,8 @@ public class EventAssignment {
 	 * @returnthe previous event of assignments
 	 * @throws Exception if the event cannot be found
 	 */
-	public VEvent previousEvent() {
-		int pos = assignment.getEvents().indexOf(event);
+	public SourceEvent previousEvent() {
+		int pos = assignment.indexOf(event);
 		
 		if(pos < 0) {
 			throw new RuntimeException("Internal error: could not find event");
@@ -49,8 +65,8 @@ public class EventAssignment {
 	 * @returnthe next event of assignments
 	 * @throws Exception if the event cannot be found
 	 */
-	public VEvent nextEvent() {
-		int pos = assignment.getEvents().indexOf(event);
+	public SourceEvent nextEvent() {
+		int pos = assignment.indexOf(event);
 		
 		if(pos < 0) {
 			throw new RuntimeException("Internal error: could not find event");
@@ -67,10 +83,52 @@ public class EventAssignment {
 	 * Getter for the property event
 	 * @return the assigned event
 	 */
-	public VEvent getEvent() {
+	public SourceEvent getEvent() {
 		return event;
 	}
 	
+	/**
+	 * Getter for the property planned
+	 * @return true if tasks should be created for this event
+	 */
+	public boolean isPlanned() {
+		return planned;
+	}
+	
+	/**
+	 * Identifies the event and assignment across runs by the UID of the event (or its summary
+	 * and start if there is no UID), the replaced start of an occurrence of a series and the
+	 * regex of the assignment
+	 * @return identity without the occurrence
+	 */
+	public String getIdentity() {
+		String source = event.getUid() != null ? event.getUid() : event.getSummary() + "\n" + event.getStart();
+		
+		//the occurrences of a series share their UID
+		if(event.getRecurrenceId() != null) {
+			source += "\n" + event.getRecurrenceId();
+		}
+		
+		return source + "\n" + assignment.getRegex();
+	}
+	
+	/**
+	 * Setter for the property occurrence
+	 * @param number of EventAssignments with the same identity before this one plus one
+	 */
+	public void setOccurrence(int occurrence) {
+		this.occurrence = occurrence;
+	}
+	
+	/**
+	 * Stable key of this EventAssignment. Unlike the identity it differs for an event which occurs
+	 * multiple times (e.g. the same UID in two schedules)
+	 * @return identity and occurrence
+	 */
+	public String getKey() {
+		return getIdentity() + "\n" + occurrence;
+	}
+	
 	/**
 	 * Getter for the property assignment
 	 * @return the Assignment
@@ -85,15 +143,15 @@ public class EventAssignment {
 	 * @throws Exception
 	 */
 	public DateRange beforeRange() {
-		Date start;
+		long start;
 		if(previousEvent() == null) {
 			//init lastDateTime as first found event - 2 weeks
-			start = new Date(getEvent().getStartDate().getDate().getTime() - (60 * 60 * 24 * 7 * 2 * 1000));
+			start = DateRange.toMinutes(new Date(getEvent().getStart() - DEFAULT_WINDOW));
 		}else {
-			start = previousEvent().getEndDate().getDate();
+			start = previousEvent().getEndMinutes();
 		}
 		
-		return new DateRange(start, getEvent().getStartDate().getDate());
+		return new DateRange(start, getEvent().getStartMinutes());
 	}
 	
 	/**
@@ -102,14 +160,14 @@ public class EventAssignment {
 	 * @throws Exception
 	 */
 	public DateRange afterRange() {
-		Date end;
+		long end;
 		if(nextEvent() == null) {
 			//init lastDateTime as first found event - 2 weeks
-			end = new Date(getEvent().getStartDate().getDate().getTime() + (60 * 60 * 24 * 7 * 2 * 1000));
+			end = DateRange.toMinutes(new Date(getEvent().getStart() + DEFAULT_WINDOW));
 		}else {
-			end = nextEvent().getEndDate().getDate();
+			end = nextEvent().getEndMinutes();
 		}
 		
-		return new DateRange(getEvent().getEndDate().getDate(), end);
+		return new DateRange(getEvent().getEndMinutes(), end);
 	}
 }
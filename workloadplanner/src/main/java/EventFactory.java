@@ -0,0 +1,119 @@
+import java.text.DateFormat;
+
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+
+import java.util.Date;
+
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.TimeZone;
+import net.fortuna.ical4j.model.TimeZoneRegistryFactory;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.property.TzId;
+import net.fortuna.ical4j.model.property.Uid;
+
+/**
+ * Creates the events for the placed tasks. The time zone is resolved once when the factory is
+ * created and the formatters are reused. The names of the tasks are rendered from their
+ * compiled templates, so only the values of the used placeholders are formatted
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class EventFactory {
+	//DateFormat is not thread-safe
+	private static final ThreadLocal<DateFormat> EVENT_FORMAT = ThreadLocal.withInitial(
+			() -> DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.SHORT)
+	);
+	private static final ThreadLocal<DateFormat> MESSAGE_FORMAT = ThreadLocal.withInitial(
+			() -> DateFormat.getDateTimeInstance()
+	);
+	private static final DateTimeFormatter RANGE_FORMAT = DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM);
+	
+	private TzId timezoneId;
+	private ZoneId zone = ZoneId.systemDefault();
+	
+	/**
+	 * Constructor of EventFactory
+	 * @throws Exception if the time zone GMT cannot be resolved
+	 */
+	public EventFactory() {
+		TimeZone timezone = TimeZoneRegistryFactory.getInstance().createRegistry().getTimeZone("GMT");
+		
+		if(timezone == null) {
+			throw new RuntimeException("The time zone GMT cannot be resolved");
+		}
+		
+		timezoneId = timezone.getVTimeZone().getTimeZoneId();
+	}
+	
+	/**
+	 * Creates a new event based on a Task, EventAssignment and a DateRange
+	 * @param the Task which should occur
+	 * @param the assocation of Event and the corresponding Assignment
+	 * @param the DateRange for the task to occur
+	 * @param if the task gets splitted into multiple chunks/subtask the pageIdx will tell you which chunk gets used
+	 * @param total amount of chunks
+	 * @param UID of the event
+	 * @return a new VEvent for the occuring Task
+	 */
+	public VEvent createEvent(Task type, EventAssignment cm, DateRange range, int pageIdx, int pageTotal, String uid) {
+		String summary = type.getTemplate().render(placeholder -> value(placeholder, type, cm, range, pageIdx, pageTotal));
+		
+		VEvent event = new VEvent(
+				new DateTime(DateTime.from(range.getStart().atZone(zone).toInstant())),
+				new DateTime(DateTime.from(range.getEnd().atZone(zone).toInstant())),
+				summary
+		);
+		
+		event.getProperties().add(new Uid(uid));
+		event.getProperties().add(timezoneId);
+		
+		return event;
+	}
+	
+	/**
+	 * Formats a date for messages to the user
+	 * @param the date
+	 * @return date and time in the default format of the locale
+	 */
+	public String format(Date date) {
+		return MESSAGE_FORMAT.get().format(date);
+	}
+	
+	/**
+	 * Calculates the value of a placeholder
+	 * @param the placeholder
+	 * @param the Task which should occur
+	 * @param the assocation of Event and the corresponding Assignment
+	 * @param the DateRange for the task to occur
+	 * @param index of the chunk
+	 * @param total amount of chunks
+	 * @return the value replacing the placeholder
+	 */
+	private static String value(SummaryTemplate.Placeholder placeholder, Task type, EventAssignment cm, DateRange range, int pageIdx, int pageTotal) {
+		switch(placeholder) {
+		case PAGE_INDEX:
+			return String.valueOf(pageIdx);
+		case PAGE_TOTAL:
+			return String.valueOf(pageTotal);
+		case EVENT_NAME:
+			return cm.getEvent().getSummary();
+		case EVENT_START:
+			return EVENT_FORMAT.get().format(cm.getEvent().getStartDate());
+		case EVENT_END:
+			return EVENT_FORMAT.get().format(cm.getEvent().getEndDate());
+		case EVENT_DURATION:
+			return String.valueOf(range.getDuration());
+		case FROM:
+			return range.getStart().format(RANGE_FORMAT);
+		case TO:
+			return range.getEnd().format(RANGE_FORMAT);
+		case DURATION:
+			return String.valueOf(type.getDuration());
+		default:
+			throw new RuntimeException("Unknown placeholder " + placeholder.getName());
+		}
+	}
+}
@@ -0,0 +1,273 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Places the hours of all tasks at once as a min-cost flow. The tasks are connected to the free
+ * hours of the vacancies inside of their windows, an hour costs the rank of its vacancy in the
+ * priority. The maximal flow places as many hours as possible and among those placements the
+ * cheapest is taken, so the vacancies with the best priority are used first.
+ * The flow is found by the primal-dual method: after each search of the shortest distances
+ * (Dijkstra with potentials) all shortest paths are augmented at once (blocking flow), so the
+ * amount of searches only depends on the different costs of the paths. The budget is spent for
+ * each visited node, once it is exhausted the flow found so far is kept
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class FlowStrategy implements SchedulingStrategy {
+	final static long INFINITY = Long.MAX_VALUE / 4;
+	
+	final static int SOURCE = 0;
+	final static int SINK = 1;
+	
+	//graph as adjacency lists, the reverse of edge e is e ^ 1
+	private int[] head;
+	private int[] next;
+	private int[] to;
+	private int[] capacity;
+	private long[] cost;
+	private int edges = 0;
+	
+	private long[] potential;
+	private int[] level;
+	private Budget budget;
+	
+	@Override
+	public void place(List<Demand> demands, List<Vacancy> vacancies, ReservationIndex reservations, Metrics metrics, Budget budget) {
+		if(demands.isEmpty()) {
+			return;
+		}
+		
+		this.budget = budget;
+		
+		List<FreeHour> hours = disjoint(FreeHour.collect(vacancies, reservations, FreeHour.span(demands), metrics, budget));
+		
+		//source, sink, one node per demand and per hour
+		int nodes = 2 + demands.size() + hours.size();
+		head = new int[nodes];
+		Arrays.fill(head, -1);
+		next = new int[16];
+		to = new int[16];
+		capacity = new int[16];
+		cost = new long[16];
+		
+		//first and last edge from each demand to the hours
+		int[] demandEdges = new int[demands.size()];
+		int[] demandEnds = new int[demands.size()];
+		for(int idx = 0; idx < demands.size(); idx++) {
+			Demand demand = demands.get(idx);
+			addEdge(SOURCE, 2 + idx, demand.getHours(), 0);
+			
+			demandEdges[idx] = edges;
+			for(int hourIdx = FreeHour.first(hours, demand.getWindow().getStartMinutes()); hourIdx < hours.size() && hours.get(hourIdx).end <= demand.getWindow().getEndMinutes(); hourIdx++) {
+				addEdge(2 + idx, 2 + demands.size() + hourIdx, 1, hours.get(hourIdx).rank);
+			}
+			
+			demandEnds[idx] = edges;
+		}
+		
+		for(int hourIdx = 0; hourIdx < hours.size(); hourIdx++) {
+			addEdge(2 + demands.size() + hourIdx, SINK, 1, 0);
+		}
+		
+		potential = new long[nodes];
+		level = new int[nodes];
+		
+		long phases = 0;
+		while(shortestPaths()) {
+			phases++;
+			
+			while(!budget.isExhausted() && levels()) {
+				augment();
+			}
+		}
+		
+		//the hours with flow on their edge have been taken by the demand
+		for(int idx = 0; idx < demands.size(); idx++) {
+			Demand demand = demands.get(idx);
+			List<FreeHour> placed = new ArrayList<>();
+			
+			for(int edge = demandEdges[idx]; edge < demandEnds[idx]; edge += 2) {
+				if(capacity[edge] == 0) {
+					FreeHour hour = hours.get(to[edge] - 2 - demands.size());
+					placed.add(hour);
+					reservations.add(hour.start, hour.end);
+				}
+			}
+			
+			demand.setPlacement(FreeHour.merge(placed), demand.getHours() - placed.size());
+		}
+		
+		metrics.count("flow.edges", edges / 2);
+		metrics.count("flow.phases", phases);
+	}
+	
+	/**
+	 * Removes the hours overlapping an hour of a vacancy with a better priority
+	 * @param the hours sorted chronologically
+	 * @return hours which do not overlap each other sorted chronologically
+	 */
+	private static List<FreeHour> disjoint(List<FreeHour> hours) {
+		List<FreeHour> byRank = new ArrayList<>(hours);
+		byRank.sort(Comparator.<FreeHour>comparingInt(hour -> hour.rank).thenComparingLong(hour -> hour.start));
+		
+		TreeMap<Long, FreeHour> kept = new TreeMap<>();
+		for(FreeHour hour : byRank) {
+			Map.Entry<Long, FreeHour> before = kept.lowerEntry(hour.end);
+			
+			if(before == null || before.getValue().end <= hour.start) {
+				kept.put(hour.start, hour);
+			}
+		}
+		
+		return new ArrayList<>(kept.values());
+	}
+	
+	private void addEdge(int from, int target, int amount, long price) {
+		if(edges + 2 > to.length) {
+			int size = to.length * 2;
+			next = Arrays.copyOf(next, size);
+			to = Arrays.copyOf(to, size);
+			capacity = Arrays.copyOf(capacity, size);
+			cost = Arrays.copyOf(cost, size);
+		}
+		
+		to[edges] = target;
+		capacity[edges] = amount;
+		cost[edges] = price;
+		next[edges] = head[from];
+		head[from] = edges++;
+		
+		to[edges] = from;
+		capacity[edges] = 0;
+		cost[edges] = -price;
+		next[edges] = head[target];
+		head[target] = edges++;
+	}
+	
+	private long reducedCost(int from, int edge) {
+		return cost[edge] + potential[from] - potential[to[edge]];
+	}
+	
+	/**
+	 * Searches the shortest distances from the source with the reduced costs and updates the
+	 * potentials, so all edges on a shortest path have a reduced cost of 0
+	 * @return false if the sink cannot be reached anymore or the budget is exhausted
+	 */
+	private boolean shortestPaths() {
+		long[] distance = new long[head.length];
+		Arrays.fill(distance, INFINITY);
+		distance[SOURCE] = 0;
+		
+		PriorityQueue<long[]> queue = new PriorityQueue<>(Comparator.comparingLong(entry -> entry[0]));
+		queue.add(new long[] {0, SOURCE});
+		
+		while(!queue.isEmpty()) {
+			long[] entry = queue.poll();
+			int node = (int) entry[1];
+			
+			if(entry[0] > distance[node]) {
+				continue;
+			}
+			
+			if(!budget.spend(1)) {
+				return false;
+			}
+			
+			for(int edge = head[node]; edge != -1; edge = next[edge]) {
+				if(capacity[edge] > 0 && distance[node] + reducedCost(node, edge) < distance[to[edge]]) {
+					distance[to[edge]] = distance[node] + reducedCost(node, edge);
+					queue.add(new long[] {distance[to[edge]], to[edge]});
+				}
+			}
+		}
+		
+		if(distance[SINK] == INFINITY) {
+			return false;
+		}
+		
+		for(int node = 0; node < head.length; node++) {
+			potential[node] += Math.min(distance[node], distance[SINK]);
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Numbers the nodes by their distance from the source on edges with a reduced cost of 0
+	 * @return true if the sink can be reached
+	 */
+	private boolean levels() {
+		Arrays.fill(level, -1);
+		level[SOURCE] = 0;
+		
+		ArrayDeque<Integer> queue = new ArrayDeque<>();
+		queue.add(SOURCE);
+		
+		while(!queue.isEmpty()) {
+			int node = queue.poll();
+			
+			for(int edge = head[node]; edge != -1; edge = next[edge]) {
+				if(capacity[edge] > 0 && level[to[edge]] < 0 && reducedCost(node, edge) == 0) {
+					level[to[edge]] = level[node] + 1;
+					queue.add(to[edge]);
+				}
+			}
+		}
+		
+		return level[SINK] >= 0;
+	}
+	
+	/**
+	 * Augments paths along the levels until the sink cannot be reached anymore (blocking flow).
+	 * Each path carries one hour since the edges of the hours have a capacity of 1. A path which
+	 * is interrupted by the budget is not augmented
+	 */
+	private void augment() {
+		int[] current = Arrays.copyOf(head, head.length);
+		int[] path = new int[head.length];
+		int depth = 0;
+		int node = SOURCE;
+		
+		while(budget.spend(1)) {
+			if(node == SINK) {
+				for(int idx = 0; idx < depth; idx++) {
+					capacity[path[idx]]--;
+					capacity[path[idx] ^ 1]++;
+				}
+				
+				depth = 0;
+				node = SOURCE;
+				continue;
+			}
+			
+			int edge = current[node];
+			while(edge != -1 && !(capacity[edge] > 0 && level[to[edge]] == level[node] + 1 && reducedCost(node, edge) == 0)) {
+				edge = next[edge];
+			}
+			
+			current[node] = edge;
+			
+			if(edge != -1) {
+				path[depth++] = edge;
+				node = to[edge];
+				continue;
+			}
+			
+			if(node == SOURCE) {
+				return;
+			}
+			
+			//dead end, go back and try the next edge
+			level[node] = -1;
+			node = to[path[--depth] ^ 1];
+			current[node] = next[current[node]];
+		}
+	}
+}
@@ -0,0 +1,126 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * One free hour of a vacancy. The strategies placing all tasks at once split the free ranges
+ * of the vacancies into hours, starting at the beginning of each free range
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class FreeHour {
+	final long start;
+	final long end;
+	final int rank;
+	
+	/**
+	 * Constructor of FreeHour
+	 * @param start in minutes (see DateRange)
+	 * @param end in minutes (see DateRange)
+	 * @param index of the vacancy in the list sorted by priority
+	 */
+	FreeHour(long start, long end, int rank) {
+		this.start = start;
+		this.end = end;
+		this.rank = rank;
+	}
+	
+	/**
+	 * Splits the free ranges of all vacancies inside of a range into hours. The hours of
+	 * different vacancies can overlap
+	 * @param the vacancies sorted by priority
+	 * @param the reservations which are not available
+	 * @param the range covering the windows of all tasks
+	 * @param the metrics receiving the examined slots
+	 * @param the budget spent for each examined slot (the collecting stops once it is exhausted)
+	 * @return the hours sorted chronologically and by priority
+	 */
+	static List<FreeHour> collect(List<Vacancy> vacancies, ReservationIndex reservations, DateRange span, Metrics metrics, Budget budget) {
+		List<FreeHour> ret = new ArrayList<>();
+		long slotsExamined = 0;
+		
+		for(int rank = 0; rank < vacancies.size(); rank++) {
+			VacancySlots slots = new VacancySlots(Collections.singletonList(vacancies.get(rank)), span);
+			
+			while(slots.hasNext() && budget.spend(1)) {
+				slotsExamined++;
+				
+				for(DateRange free : reservations.freeRanges(slots.next())) {
+					for(long start = free.getStartMinutes(); start + DateRange.MINUTES_PER_HOUR <= free.getEndMinutes(); start += DateRange.MINUTES_PER_HOUR) {
+						ret.add(new FreeHour(start, start + DateRange.MINUTES_PER_HOUR, rank));
+					}
+				}
+			}
+		}
+		
+		ret.sort(Comparator.<FreeHour>comparingLong(hour -> hour.start).thenComparingInt(hour -> hour.rank));
+		
+		metrics.count("slots.examined", slotsExamined);
+		return ret;
+	}
+	
+	/**
+	 * Finds the range covering the windows of all demands
+	 * @param the demands (at least one)
+	 * @return the range from the first start to the last end
+	 */
+	static DateRange span(List<Demand> demands) {
+		long from = Long.MAX_VALUE;
+		long to = Long.MIN_VALUE;
+		
+		for(Demand demand : demands) {
+			from = Math.min(from, demand.getWindow().getStartMinutes());
+			to = Math.max(to, demand.getWindow().getEndMinutes());
+		}
+		
+		return new DateRange(from, to);
+	}
+	
+	/**
+	 * Binary search for the first hour starting at or after the given time
+	 * @param the hours sorted chronologically
+	 * @param minutes (see DateRange)
+	 * @return index of the hour
+	 */
+	static int first(List<FreeHour> hours, long start) {
+		int low = 0;
+		int high = hours.size();
+		
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			
+			if(hours.get(middle).start < start) {
+				low = middle + 1;
+			}else {
+				high = middle;
+			}
+		}
+		
+		return low;
+	}
+	
+	/**
+	 * Merges adjoining hours into chunks
+	 * @param the hours
+	 * @return chronologically sorted chunks
+	 */
+	static List<DateRange> merge(List<FreeHour> hours) {
+		List<FreeHour> sorted = new ArrayList<>(hours);
+		sorted.sort(Comparator.comparingLong(hour -> hour.start));
+		
+		List<DateRange> ret = new ArrayList<>();
+		for(FreeHour hour : sorted) {
+			DateRange last = ret.isEmpty() ? null : ret.get(ret.size() - 1);
+			
+			if(last != null && last.getEndMinutes() == hour.start) {
+				ret.set(ret.size() - 1, new DateRange(last.getStartMinutes(), hour.end));
+			}else {
+				ret.add(new DateRange(hour.start, hour.end));
+			}
+		}
+		
+		return ret;
+	}
+}
@@ -0,0 +1,60 @@
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Places one task after the other in the order of the events. Each task takes the earliest
+ * free ranges of the vacancies in the order of their priority. Once the budget is exhausted the
+ * remaining tasks are not placed anymore
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class GreedyStrategy implements SchedulingStrategy {
+	@Override
+	public void place(List<Demand> demands, List<Vacancy> vacancies, ReservationIndex reservations, Metrics metrics, Budget budget) {
+		long slotsExamined = 0;
+		long collisionChecks = 0;
+		
+		for(Demand demand : demands) {
+			int hours = demand.getHours();
+			
+			List<DateRange> pages = new LinkedList<>();
+			
+			Iterator<DateRange> slots = new VacancySlots(vacancies, demand.getWindow());
+			
+			while(hours > 0 && slots.hasNext() && !budget.isExhausted()) {
+				DateRange vacancyRange = slots.next();
+				slotsExamined++;
+				
+				//reserve free ranges of at least one hour until the slot is full
+				while(hours > 0 && budget.spend(1)) {
+					long start = reservations.findFree(vacancyRange.getStartMinutes(), vacancyRange.getEndMinutes(), DateRange.MINUTES_PER_HOUR);
+					collisionChecks++;
+					
+					if(start == ReservationIndex.NONE || !budget.spend(1)) {
+						break;
+					}
+					
+					DateRange possibleRange = new DateRange(start, reservations.freeEnd(start, vacancyRange.getEndMinutes()));
+					collisionChecks++;
+					
+					if(possibleRange.getDuration() > hours) {
+						possibleRange.setDuration(hours);
+					}
+					
+					hours -= possibleRange.getDuration();
+					
+					reservations.add(possibleRange);
+					
+					pages.add(possibleRange);
+				}
+			}
+			
+			demand.setPlacement(pages, hours);
+		}
+		
+		metrics.count("slots.examined", slotsExamined);
+		metrics.count("collision.checks", collisionChecks);
+	}
+}
@@ -0,0 +1,168 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sorted set of disjoint reserved timespans. Overlapping or touching ranges are merged on insert,
+ * so looking up the free parts of a window only visits the reservations inside of that window.
+ * The timespans are stored as minutes (see DateRange) in two packed arrays. The times are kept
+ * exactly, which makes this index the right choice for sparse calendars
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class IntervalReservations implements ReservationIndex {
+	private long[] starts = new long[16];
+	private long[] ends = new long[16];
+	private int size = 0;
+	
+	@Override
+	public void add(long start, long end) {
+		if(start >= end) {
+			return;
+		}
+		
+		//first reservation which ends at or after the new start and the last one starting before or at the new end
+		int first = firstEndingAtOrAfter(start);
+		int last = lastStartingAtOrBefore(end);
+		
+		if(first > last) {
+			//no overlap - insert at position first
+			if(size == starts.length) {
+				starts = Arrays.copyOf(starts, size * 2);
+				ends = Arrays.copyOf(ends, size * 2);
+			}
+			
+			System.arraycopy(starts, first, starts, first + 1, size - first);
+			System.arraycopy(ends, first, ends, first + 1, size - first);
+			starts[first] = start;
+			ends[first] = end;
+			size++;
+			return;
+		}
+		
+		//merge all reservations between first and last into the slot first
+		starts[first] = Math.min(start, starts[first]);
+		ends[first] = Math.max(end, ends[last]);
+		
+		int removed = last - first;
+		if(removed > 0) {
+			System.arraycopy(starts, last + 1, starts, first + 1, size - last - 1);
+			System.arraycopy(ends, last + 1, ends, first + 1, size - last - 1);
+			size -= removed;
+		}
+	}
+	
+	@Override
+	public long findFree(long from, long to, long minLength) {
+		long cursor = from;
+		
+		int idx = lastStartingAtOrBefore(from);
+		if(idx >= 0 && ends[idx] > cursor) {
+			cursor = ends[idx];
+		}
+		
+		for(idx++; idx < size && starts[idx] < to; idx++) {
+			if(starts[idx] - cursor >= minLength) {
+				return cursor;
+			}
+			
+			if(ends[idx] > cursor) {
+				cursor = ends[idx];
+			}
+		}
+		
+		if(to - cursor >= minLength) {
+			return cursor;
+		}
+		
+		return NONE;
+	}
+	
+	@Override
+	public boolean isFree(long start, long end) {
+		int idx = lastStartingAtOrBefore(start);
+		
+		if(idx >= 0 && ends[idx] > start) {
+			return false;
+		}
+		
+		return idx + 1 >= size || starts[idx + 1] >= end;
+	}
+	
+	@Override
+	public long freeEnd(long start, long to) {
+		int idx = lastStartingAtOrBefore(start) + 1;
+		
+		if(idx < size && starts[idx] < to) {
+			return starts[idx];
+		}
+		
+		return to;
+	}
+	
+	/**
+	 * Number of disjoint reserved timespans
+	 * @return amount of stored ranges after merging
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Getter for the reserved timespans
+	 * @return the disjoint reservations in ascending order
+	 */
+	public List<DateRange> getReservations() {
+		List<DateRange> ret = new ArrayList<>(size);
+		for(int idx = 0; idx < size; idx++) {
+			ret.add(new DateRange(starts[idx], ends[idx]));
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * Binary search for the last reservation which starts at or before the given minute
+	 * @param minute
+	 * @return index of the reservation or -1
+	 */
+	private int lastStartingAtOrBefore(long minute) {
+		int lo = 0;
+		int hi = size - 1;
+		
+		while(lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			
+			if(starts[mid] <= minute) {
+				lo = mid + 1;
+			}else {
+				hi = mid - 1;
+			}
+		}
+		
+		return hi;
+	}
+	
+	/**
+	 * Binary search for the first reservation which ends at or after the given minute
+	 * @param minute
+	 * @return index of the reservation or size
+	 */
+	private int firstEndingAtOrAfter(long minute) {
+		int lo = 0;
+		int hi = size - 1;
+		
+		while(lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			
+			if(ends[mid] < minute) {
+				lo = mid + 1;
+			}else {
+				hi = mid - 1;
+			}
+		}
+		
+		return lo;
+	}
+}
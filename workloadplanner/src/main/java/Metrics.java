@@ -0,0 +1,146 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Collects the wall time of the phases of a run and counters like the amount of parsed events.
+ * Phases and counters are created on their first use and reported in that order. All methods
+ * can be called concurrently, the parsing threads add up their time and counts
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class Metrics {
+	private Map<String, LongAdder> phases = Collections.synchronizedMap(new LinkedHashMap<>());
+	private Map<String, LongAdder> counters = Collections.synchronizedMap(new LinkedHashMap<>());
+	
+	/**
+	 * Adds time to a phase
+	 * @param name of the phase
+	 * @param time in nanoseconds
+	 */
+	public void addTime(String phase, long nanos) {
+		phases.computeIfAbsent(phase, key -> new LongAdder()).add(nanos);
+	}
+	
+	/**
+	 * Adds to a counter
+	 * @param name of the counter
+	 * @param amount to add
+	 */
+	public void count(String counter, long amount) {
+		counters.computeIfAbsent(counter, key -> new LongAdder()).add(amount);
+	}
+	
+	/**
+	 * Getter for the time of a phase
+	 * @param name of the phase
+	 * @return time in milliseconds (0 if the phase has not been measured)
+	 */
+	public double getTime(String phase) {
+		LongAdder time = phases.get(phase);
+		return time == null ? 0 : time.sum() / 1e6;
+	}
+	
+	/**
+	 * Getter for a counter
+	 * @param name of the counter
+	 * @return value of the counter (0 if nothing has been counted)
+	 */
+	public long getCount(String counter) {
+		LongAdder count = counters.get(counter);
+		return count == null ? 0 : count.sum();
+	}
+	
+	/**
+	 * Creates a JSON object with the phases (in milliseconds) and the counters
+	 * @return the metrics as JSON
+	 */
+	public String toJson() {
+		StringBuilder ret = new StringBuilder();
+		
+		ret.append("{\n");
+		ret.append("  \"phases\": {");
+		appendJson(ret, names(phases), name -> String.format(Locale.ROOT, "%.3f", getTime(name)));
+		ret.append("},\n");
+		ret.append("  \"counters\": {");
+		appendJson(ret, names(counters), name -> String.valueOf(getCount(name)));
+		ret.append("}\n");
+		ret.append("}\n");
+		
+		return ret.toString();
+	}
+	
+	/**
+	 * Writes the metrics as JSON
+	 * @param the file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public void writeJson(File file) throws IOException {
+		try(PrintWriter out = new PrintWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))) {
+			out.print(toJson());
+		}
+	}
+	
+	/**
+	 * Prints the metrics as table
+	 * @param the stream to print to
+	 */
+	public void printTable(PrintStream out) {
+		List<String> phaseNames = names(phases);
+		List<String> counterNames = names(counters);
+		
+		int width = 5;
+		for(String name : phaseNames) {
+			width = Math.max(width, name.length());
+		}
+		
+		for(String name : counterNames) {
+			width = Math.max(width, name.length());
+		}
+		
+		String format = "%-" + width + "s %14s%n";
+		
+		out.printf(format, "Phase", "Time (ms)");
+		for(String name : phaseNames) {
+			out.printf(Locale.ROOT, format, name, String.format(Locale.ROOT, "%.3f", getTime(name)));
+		}
+		
+		out.println();
+		out.printf(format, "Counter", "Value");
+		for(String name : counterNames) {
+			out.printf(format, name, getCount(name));
+		}
+	}
+	
+	private static List<String> names(Map<String, LongAdder> values) {
+		synchronized(values) {
+			return new ArrayList<>(values.keySet());
+		}
+	}
+	
+	private static void appendJson(StringBuilder ret, List<String> names, Function<String, String> value) {
+		boolean first = true;
+		
+		for(String name : names) {
+			ret.append(first ? "\n" : ",\n");
+			ret.append("    \"").append(name.replace("\\", "\\\\").replace("\"", "\\\"")).append("\": ").append(value.apply(name));
+			first = false;
+		}
+		
+		if(!first) {
+			ret.append("\n  ");
+		}
+	}
+}
@@ -0,0 +1,70 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of reading one ICS file: the reserved ranges and the events matching an assignment.
+ * The instances are filled by a single worker and merged afterwards in the order of the files
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class ParsedSchedule {
+	private List<DateRange> reservations = new ArrayList<>();
+	private List<Match> matches = new ArrayList<>();
+	
+	/**
+	 * Adds a range which is blocked by an event
+	 * @param the blocked range
+	 */
+	public void addReservation(DateRange range) {
+		reservations.add(range);
+	}
+	
+	/**
+	 * Remembers that an event matches an assignment
+	 * @param the matched event
+	 * @param the assignment which matches the event
+	 * @param false if the event only serves as neighbour for other events
+	 */
+	public void addMatch(SourceEvent event, Assignment assignment, boolean planned) {
+		matches.add(new Match(event, assignment, planned));
+	}
+	
+	/**
+	 * Getter for the reserved ranges
+	 * @return ranges in the order they have been added
+	 */
+	public List<DateRange> getReservations() {
+		return reservations;
+	}
+	
+	/**
+	 * Creates the EventAssignments for all matches. Since an EventAssignment registers its event
+	 * in the assignment this must not be called concurrently
+	 * @return EventAssignments in the order the matches have been added
+	 */
+	public List<EventAssignment> createEventAssignments() {
+		List<EventAssignment> ret = new ArrayList<>(matches.size());
+		
+		for(Match match : matches) {
+			ret.add(new EventAssignment(match.event, match.assignment, match.planned));
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * An event matching an assignment
+	 */
+	private static class Match {
+		final SourceEvent event;
+		final Assignment assignment;
+		final boolean planned;
+		
+		Match(SourceEvent event, Assignment assignment, boolean planned) {
+			this.event = event;
+			this.assignment = assignment;
+			this.planned = planned;
+		}
+	}
+}
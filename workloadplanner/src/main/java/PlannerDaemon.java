@@ -0,0 +1,212 @@
+import java.io.File;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps planning in the same JVM. The configuration and the local schedules are watched and
+ * the URLs are polled in an interval. After each change all inputs are read again, but the
+ * output file is only rewritten if one of them (configuration, local or downloaded schedules)
+ * differs from the last written plan. The downloader and the events of the parsed schedules
+ * (SourceCache) are shared between the cycles, so only the changed schedules are read again
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class PlannerDaemon {
+	/**
+	 * Time in milliseconds to wait for further changes after a file has changed (editors often write several times)
+	 */
+	final static long SETTLE_TIME = 500;
+	
+	private File configFile;
+	private File output;
+	private ScheduleDownloader downloader;
+	private Supplier<DateCalculator> calculators;
+	private SourceCache sources = new SourceCache();
+	private long interval = 5 * 60 * 1000;
+	
+	private String fingerprint;
+	private Set<Path> registered = new HashSet<>();
+	
+	/**
+	 * Constructor of PlannerDaemon
+	 * @param the configuration file
+	 * @param the location of the ICS file which will be written
+	 * @param the downloader used for all cycles
+	 * @param creates a configured DateCalculator for each cycle
+	 */
+	public PlannerDaemon(File configFile, File output, ScheduleDownloader downloader, Supplier<DateCalculator> calculators) {
+		this.configFile = configFile;
+		this.output = output;
+		this.downloader = downloader;
+		this.calculators = calculators;
+	}
+	
+	/**
+	 * Setter for the interval the URLs are polled in (and a failed cycle is repeated)
+	 * @param interval in milliseconds
+	 * @throws Exception if the interval is less than 1
+	 */
+	public void setInterval(long interval) {
+		if(interval < 1) {
+			throw new RuntimeException("The interval must be at least 1 millisecond");
+		}
+		
+		this.interval = interval;
+	}
+	
+	/**
+	 * Plans until the thread gets interrupted
+	 * @throws Exception if the file system cannot be watched
+	 */
+	public void run() throws Exception {
+		try(WatchService watcher = FileSystems.getDefault().newWatchService()) {
+			while(!Thread.currentThread().isInterrupted()) {
+				ConfigReader conf = cycle();
+				
+				Set<Path> watched = new HashSet<>();
+				watched.add(configFile.getAbsoluteFile().toPath());
+				
+				boolean poll = conf == null;
+				if(conf != null) {
+					for(File file : conf.getScheduleFiles()) {
+						watched.add(file.getAbsoluteFile().toPath());
+					}
+					
+					poll = !conf.getScheduleURLs().isEmpty();
+				}
+				
+				for(Path path : watched) {
+					Path directory = path.getParent();
+					
+					if(!registered.contains(directory) && Files.isDirectory(directory)) {
+						registered.add(directory);
+						directory.register(
+								watcher,
+								StandardWatchEventKinds.ENTRY_CREATE,
+								StandardWatchEventKinds.ENTRY_MODIFY,
+								StandardWatchEventKinds.ENTRY_DELETE
+						);
+					}
+				}
+				
+				awaitChange(watcher, watched, poll ? System.currentTimeMillis() + interval : Long.MAX_VALUE);
+			}
+		}catch(InterruptedException | ClosedWatchServiceException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Reads all inputs and writes the output file if any of them changed since the last written plan
+	 * @return the ConfigReader of this cycle or null if the planning failed
+	 */
+	ConfigReader cycle() {
+		try {
+			ConfigReader conf = new ConfigReader(configFile);
+			conf.setDownloader(downloader);
+			conf.process();
+			
+			String current = fingerprint(conf);
+			if(current.equals(fingerprint)) {
+				return conf;
+			}
+			
+			DateCalculator calc = calculators.get();
+			calc.setSourceCache(sources);
+			
+			if(calc.calculateAndSave(conf, output)) {
+				System.out.println("Events have been calculated and stored in " + output.getAbsolutePath());
+			}
+			
+			fingerprint = current;
+			return conf;
+		}catch(Exception e) {
+			//keep running, the inputs might be fixed later on
+			System.out.println("Planning failed: " + e.getMessage());
+			return null;
+		}
+	}
+	
+	/**
+	 * Describes the state of all inputs by their path, size and modification time
+	 * @param the processed configuration
+	 * @return the fingerprint of the inputs
+	 * @throws Exception if the configuration cannot be read
+	 */
+	private String fingerprint(ConfigReader conf) throws Exception {
+		StringBuilder ret = new StringBuilder();
+		
+		ret.append(configFile.getAbsolutePath()).append('|').append(configFile.length()).append('|').append(configFile.lastModified()).append('\n');
+		
+		for(File file : conf.getPathsToICS()) {
+			ret.append(file.getAbsolutePath()).append('|').append(file.length()).append('|').append(file.lastModified()).append('\n');
+		}
+		
+		return ret.toString();
+	}
+	
+	/**
+	 * Waits until one of the watched files changes or the deadline is reached
+	 * @param the watcher the directories of the files are registered with
+	 * @param the watched files
+	 * @param time in milliseconds since the epoch to stop waiting at
+	 * @throws InterruptedException if the thread gets interrupted
+	 */
+	private void awaitChange(WatchService watcher, Set<Path> watched, long deadline) throws InterruptedException {
+		while(true) {
+			WatchKey key;
+			if(deadline == Long.MAX_VALUE) {
+				key = watcher.take();
+			}else {
+				long remaining = deadline - System.currentTimeMillis();
+				if(remaining <= 0) {
+					return;
+				}
+				
+				key = watcher.poll(remaining, TimeUnit.MILLISECONDS);
+				if(key == null) {
+					return;
+				}
+			}
+			
+			if(isRelevant(key, watched)) {
+				//let the writer finish and ignore the events it causes meanwhile
+				Thread.sleep(SETTLE_TIME);
+				
+				while((key = watcher.poll()) != null) {
+					key.pollEvents();
+					key.reset();
+				}
+				
+				return;
+			}
+		}
+	}
+	
+	private static boolean isRelevant(WatchKey key, Set<Path> watched) {
+		Path directory = (Path) key.watchable();
+		boolean ret = false;
+		
+		for(WatchEvent<?> event : key.pollEvents()) {
+			if(event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				ret = true;
+			}else if(watched.contains(directory.resolve((Path) event.context()))) {
+				ret = true;
+			}
+		}
+		
+		key.reset();
+		return ret;
+	}
+}
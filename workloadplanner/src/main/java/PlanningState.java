@@ -0,0 +1,248 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers where the tasks have been placed by the last run. A placement is stored under the
+ * key of the EventAssignment and the task together with the inputs it has been
+ * calculated from (times of the event, window and duration). If those inputs did not change and
+ * the placed chunks are still free, the next run keeps the chunks and their UIDs instead of
+ * planning the task again, so calendar clients do not see every event moving
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class PlanningState {
+	final static int MAGIC = 0x574c5054;
+	final static int VERSION = 1;
+	
+	private File file;
+	private boolean loaded = false;
+	private String inputs;
+	private Map<String, Placement> previous = new HashMap<>();
+	private Map<String, Placement> current = new LinkedHashMap<>();
+	
+	/**
+	 * Constructor of PlanningState
+	 * @param the file holding the state between the runs
+	 */
+	public PlanningState(File file) {
+		this.file = file;
+	}
+	
+	/**
+	 * Starts a new run. The placements of the last run are only kept if neither the vacancies
+	 * nor the settings of the planning (strategy, reservation backend, horizon) changed
+	 * @param the vacancies of the configuration
+	 * @param the settings of the planning as text
+	 */
+	public void begin(List<Vacancy> vacancies, String settings) {
+		StringBuilder key = new StringBuilder(settings).append('\n');
+		for(Vacancy vacancy : vacancies) {
+			key.append(vacancy.getWeekday()).append(' ').append(vacancy.getStart()).append(' ')
+				.append(vacancy.getEnd()).append(' ').append(vacancy.getPriority()).append('\n');
+		}
+		
+		if(!loaded) {
+			load();
+			loaded = true;
+		}
+		
+		if(!key.toString().equals(inputs)) {
+			previous.clear();
+		}
+		
+		inputs = key.toString();
+		current = new LinkedHashMap<>();
+	}
+	
+	/**
+	 * Getter for the placement of the last run
+	 * @param the key of the task
+	 * @return the placement or null
+	 */
+	public Placement getPrevious(String key) {
+		return previous.get(key);
+	}
+	
+	/**
+	 * Remembers the placement of the current run
+	 * @param the key of the task
+	 * @param the placement
+	 */
+	public void put(String key, Placement placement) {
+		current.put(key, placement);
+	}
+	
+	/**
+	 * Writes the placements of the current run and uses them as previous placements for the next run
+	 * @throws IOException if the file cannot be written
+	 */
+	public void commit() throws IOException {
+		File directory = file.getAbsoluteFile().getParentFile();
+		//hidden and long enough as prefix even for short names
+		File temp = File.createTempFile("." + file.getName() + ".", ".part", directory);
+		
+		try {
+			try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeUTF(inputs);
+				out.writeInt(current.size());
+				
+				for(Map.Entry<String, Placement> entry : current.entrySet()) {
+					Placement placement = entry.getValue();
+					
+					out.writeUTF(entry.getKey());
+					out.writeLong(placement.eventStart);
+					out.writeLong(placement.eventEnd);
+					out.writeLong(placement.windowStart);
+					out.writeLong(placement.windowEnd);
+					out.writeInt(placement.hours);
+					out.writeInt(placement.missing);
+					out.writeInt(placement.chunks.length);
+					
+					for(int i = 0; i < placement.chunks.length; i++) {
+						out.writeLong(placement.chunks[i].getStartMinutes());
+						out.writeLong(placement.chunks[i].getEndMinutes());
+						out.writeUTF(placement.uids[i]);
+					}
+				}
+			}
+			
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}finally {
+			temp.delete();
+		}
+		
+		previous = current;
+		current = new LinkedHashMap<>();
+	}
+	
+	/**
+	 * Reads the placements of the last run. A missing or broken file is treated as empty state
+	 */
+	private void load() {
+		previous.clear();
+		
+		if(!file.isFile()) {
+			return;
+		}
+		
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if(in.readInt() != MAGIC || in.readInt() != VERSION) {
+				return;
+			}
+			
+			inputs = in.readUTF();
+			int count = in.readInt();
+			
+			for(int i = 0; i < count; i++) {
+				String key = in.readUTF();
+				long eventStart = in.readLong();
+				long eventEnd = in.readLong();
+				long windowStart = in.readLong();
+				long windowEnd = in.readLong();
+				int hours = in.readInt();
+				int missing = in.readInt();
+				
+				DateRange[] chunks = new DateRange[in.readInt()];
+				String[] uids = new String[chunks.length];
+				
+				for(int j = 0; j < chunks.length; j++) {
+					chunks[j] = new DateRange(in.readLong(), in.readLong());
+					uids[j] = in.readUTF();
+				}
+				
+				previous.put(key, new Placement(eventStart, eventEnd, windowStart, windowEnd, hours, missing, chunks, uids));
+			}
+		}catch(Exception e) {
+			//a broken state is treated like a missing one
+			previous.clear();
+			inputs = null;
+		}
+	}
+	
+	/**
+	 * Immutable placement of one task of a source event
+	 */
+	public static class Placement {
+		private long eventStart;
+		private long eventEnd;
+		private long windowStart;
+		private long windowEnd;
+		private int hours;
+		private int missing;
+		private DateRange[] chunks;
+		private String[] uids;
+		
+		/**
+		 * Constructor of Placement
+		 * @param the source event
+		 * @param the window the task has been placed in
+		 * @param duration of the task in hours
+		 * @param hours which could not be placed
+		 * @param the placed chunks
+		 * @param the UIDs of the events created for the chunks
+		 */
+		public Placement(SourceEvent event, DateRange window, int hours, int missing, DateRange[] chunks, String[] uids) {
+			this(event.getStartMinutes(), event.getEndMinutes(), window.getStartMinutes(), window.getEndMinutes(), hours, missing, chunks, uids);
+		}
+		
+		private Placement(long eventStart, long eventEnd, long windowStart, long windowEnd, int hours, int missing, DateRange[] chunks, String[] uids) {
+			this.eventStart = eventStart;
+			this.eventEnd = eventEnd;
+			this.windowStart = windowStart;
+			this.windowEnd = windowEnd;
+			this.hours = hours;
+			this.missing = missing;
+			this.chunks = chunks;
+			this.uids = uids;
+		}
+		
+		/**
+		 * Tests if the placement has been calculated from the same inputs and was complete
+		 * @param the source event
+		 * @param the window of the task
+		 * @param duration of the task in hours
+		 * @return true if the placement can be reused
+		 */
+		public boolean matches(SourceEvent event, DateRange window, int hours) {
+			return missing == 0
+					&& this.hours == hours
+					&& eventStart == event.getStartMinutes()
+					&& eventEnd == event.getEndMinutes()
+					&& windowStart == window.getStartMinutes()
+					&& windowEnd == window.getEndMinutes();
+		}
+		
+		/**
+		 * Getter for the placed chunks
+		 * @return chunks in the order of their page index
+		 */
+		public DateRange[] getChunks() {
+			return chunks;
+		}
+		
+		/**
+		 * Getter for the UIDs of the chunks
+		 * @return UIDs in the order of the chunks
+		 */
+		public String[] getUids() {
+			return uids;
+		}
+	}
+}
@@ -0,0 +1,43 @@
+import java.time.ZoneId;
+
+import net.fortuna.ical4j.model.TimeZone;
+import net.fortuna.ical4j.model.TimeZoneRegistry;
+import net.fortuna.ical4j.model.TimeZoneRegistryFactory;
+
+/**
+ * Time zone registry for the CalendarBuilder which resolves TZIDs with a prefix like
+ * "/mozilla.org/20050126_1/Europe/Zurich" the same way as StreamingEventReader does.
+ * Without it ical4j treats such times as floating when the file has no VTIMEZONE for them
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class PrefixedTimeZoneRegistry implements TimeZoneRegistry {
+	private TimeZoneRegistry registry = TimeZoneRegistryFactory.getInstance().createRegistry();
+	
+	@Override
+	public void register(TimeZone timezone) {
+		registry.register(timezone);
+	}
+	
+	@Override
+	public void register(TimeZone timezone, boolean update) {
+		registry.register(timezone, update);
+	}
+	
+	@Override
+	public void clear() {
+		registry.clear();
+	}
+	
+	@Override
+	public TimeZone getTimeZone(String id) {
+		TimeZone timezone = registry.getTimeZone(id);
+		if(timezone != null) {
+			return timezone;
+		}
+		
+		ZoneId zone = SourceEvent.zone(id);
+		return zone == null || zone.getId().equals(id) ? null : registry.getTimeZone(zone.getId());
+	}
+}
@@ -0,0 +1,200 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Places the hours of all tasks at once instead of task by task. The free hours of all vacancies
+ * are collected once and handed out chronologically, each hour to the task whose window contains
+ * it and which has to be done first (earliest end of the window). The tasks waiting for hours are
+ * kept in a priority queue, so a task with a short window does not starve because an earlier
+ * task took its hours and more hours get placed. Afterwards the placed hours are exchanged with
+ * free hours of vacancies with a better priority inside of the same window. Once the budget is
+ * exhausted the hours are not handed out or exchanged anymore.
+ * Only hours lying completely inside of the window are handed out to a task. GreedyStrategy takes
+ * the whole vacancies on the days of the window (see VacancySlots), so on the first day it also
+ * uses the hours before the window starts and on the last day the hours after it ends
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class QueueStrategy implements SchedulingStrategy {
+	@Override
+	public void place(List<Demand> demands, List<Vacancy> vacancies, ReservationIndex reservations, Metrics metrics, Budget budget) {
+		if(demands.isEmpty()) {
+			return;
+		}
+		
+		List<FreeHour> hours = FreeHour.collect(vacancies, reservations, FreeHour.span(demands), metrics, budget);
+		
+		List<Pending> pending = new ArrayList<>(demands.size());
+		for(int idx = 0; idx < demands.size(); idx++) {
+			pending.add(new Pending(demands.get(idx), idx));
+		}
+		
+		Allocation allocation = new Allocation(hours.size());
+		long collisionChecks = 0;
+		
+		//hand out the hours chronologically to the demand with the earliest deadline
+		List<Pending> byStart = new ArrayList<>(pending);
+		byStart.sort(Comparator.comparingLong(entry -> entry.window.getStartMinutes()));
+		
+		PriorityQueue<Pending> queue = new PriorityQueue<>(
+				Comparator.<Pending>comparingLong(entry -> entry.window.getEndMinutes()).thenComparingInt(entry -> entry.order)
+		);
+		int next = 0;
+		
+		for(int idx = 0; idx < hours.size(); idx++) {
+			FreeHour hour = hours.get(idx);
+			
+			while(next < byStart.size() && byStart.get(next).window.getStartMinutes() <= hour.start) {
+				queue.add(byStart.get(next++));
+			}
+			
+			//the windows of these demands are over or they got all of their hours
+			while(!queue.isEmpty() && (queue.peek().remaining == 0 || queue.peek().window.getEndMinutes() < hour.end)) {
+				queue.poll();
+			}
+			
+			if(queue.isEmpty()) {
+				if(next >= byStart.size()) {
+					break;
+				}
+				
+				continue;
+			}
+			
+			//the slots of different vacancies can overlap
+			if(!budget.spend(1)) {
+				break;
+			}
+			
+			collisionChecks++;
+			if(allocation.isTaken(hour)) {
+				continue;
+			}
+			
+			allocation.take(hours, idx, queue.peek());
+		}
+		
+		//exchange the hours with free hours of a better priority
+		for(Pending entry : pending) {
+			collisionChecks += improve(entry, hours, allocation, budget);
+		}
+		
+		for(Pending entry : pending) {
+			List<FreeHour> placed = new ArrayList<>();
+			for(int idx : entry.hours) {
+				placed.add(hours.get(idx));
+				reservations.add(hours.get(idx).start, hours.get(idx).end);
+			}
+			
+			entry.demand.setPlacement(FreeHour.merge(placed), entry.remaining);
+		}
+		
+		metrics.count("collision.checks", collisionChecks);
+	}
+	
+	/**
+	 * Replaces the hours of a demand with free hours of vacancies which come first in the priority
+	 * @param the demand
+	 * @param all hours sorted chronologically
+	 * @param the hours handed out so far
+	 * @param the budget spent for each collision check
+	 * @return amount of collision checks
+	 */
+	private static long improve(Pending entry, List<FreeHour> hours, Allocation allocation, Budget budget) {
+		if(entry.hours.isEmpty() || budget.isExhausted()) {
+			return 0;
+		}
+		
+		//free hours inside of the window, best priority first
+		List<Integer> candidates = new ArrayList<>();
+		for(int idx = FreeHour.first(hours, entry.window.getStartMinutes()); idx < hours.size() && hours.get(idx).end <= entry.window.getEndMinutes(); idx++) {
+			if(allocation.owners[idx] == null) {
+				candidates.add(idx);
+			}
+		}
+		
+		candidates.sort(Comparator.comparingInt(idx -> hours.get(idx).rank));
+		
+		//placed hours, worst priority first
+		List<Integer> placed = new ArrayList<>(entry.hours);
+		placed.sort(Comparator.<Integer>comparingInt(idx -> hours.get(idx).rank).reversed());
+		
+		long collisionChecks = 0;
+		int placedIdx = 0;
+		
+		for(int candidate : candidates) {
+			if(placedIdx >= placed.size() || hours.get(candidate).rank >= hours.get(placed.get(placedIdx)).rank || !budget.spend(1)) {
+				break;
+			}
+			
+			int worst = placed.get(placedIdx);
+			allocation.release(hours, worst);
+			
+			collisionChecks++;
+			if(allocation.isTaken(hours.get(candidate))) {
+				allocation.take(hours, worst, entry);
+				continue;
+			}
+			
+			allocation.take(hours, candidate, entry);
+			placedIdx++;
+		}
+		
+		return collisionChecks;
+	}
+	
+	/**
+	 * The hours handed out so far and their owners
+	 */
+	private static class Allocation {
+		//start and end of the handed out hours
+		TreeMap<Long, Long> taken = new TreeMap<>();
+		Pending[] owners;
+		
+		Allocation(int size) {
+			owners = new Pending[size];
+		}
+		
+		boolean isTaken(FreeHour hour) {
+			Map.Entry<Long, Long> before = taken.lowerEntry(hour.end);
+			return before != null && before.getValue() > hour.start;
+		}
+		
+		void take(List<FreeHour> hours, int idx, Pending entry) {
+			taken.put(hours.get(idx).start, hours.get(idx).end);
+			owners[idx] = entry;
+			entry.hours.add(idx);
+			entry.remaining--;
+		}
+		
+		void release(List<FreeHour> hours, int idx) {
+			taken.remove(hours.get(idx).start);
+			owners[idx].hours.remove(Integer.valueOf(idx));
+			owners[idx].remaining++;
+			owners[idx] = null;
+		}
+	}
+	
+	/**
+	 * A demand while its hours are handed out
+	 */
+	private static class Pending {
+		Demand demand;
+		DateRange window;
+		int order;
+		int remaining;
+		List<Integer> hours = new ArrayList<>();
+		
+		Pending(Demand demand, int order) {
+			this.demand = demand;
+			this.window = demand.getWindow();
+			this.order = order;
+			this.remaining = demand.getHours();
+		}
+	}
+}
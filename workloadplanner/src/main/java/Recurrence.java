@@ -0,0 +1,257 @@
+import java.text.ParseException;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+
+import net.fortuna.ical4j.model.Date;
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.Recur;
+import net.fortuna.ical4j.model.parameter.Value;
+
+/**
+ * Iterates over the occurrences of a recurring SourceEvent inside of a window. The occurrences
+ * are expanded lazily in chunks of four weeks, each chunk starts the rule at its last period
+ * before the chunk instead of the start of the series, so a long series is never created as a
+ * whole (a series with COUNT is expanded once from its start since it has to be counted, it
+ * ends with its count).
+ * The RRULE is evaluated on the wall-clock time of the time zone of the event, so an occurrence
+ * keeps its local time across daylight saving time changes. The starts of the EXDATE values and
+ * of the occurrences replaced by another event (RECURRENCE-ID) are skipped
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class Recurrence implements Iterator<SourceEvent> {
+	final static long MILLIS_PER_DAY = 24 * 60 * 60 * 1000;
+	final static long CHUNK = 28 * MILLIS_PER_DAY;
+	
+	/**
+	 * Time in milliseconds a series without an end or count is expanded for if the window has no end
+	 */
+	final static long UNBOUNDED_SPAN = 366 * MILLIS_PER_DAY;
+	
+	private SourceEvent series;
+	private ZoneId zone;
+	private Set<Long> skipped = new HashSet<>();
+	
+	private Recur recur;
+	private DateTime seed;
+	private long until = Long.MAX_VALUE;
+	private TreeSet<Long> counted;
+	
+	private long cursor;
+	private long end;
+	private TreeSet<Long> pending = new TreeSet<>();
+	
+	/**
+	 * Constructor of Recurrence
+	 * @param the recurring event
+	 * @param starts of the occurrences which are replaced by other events (can be empty)
+	 * @param first start of an occurrence which is of interest as milliseconds since the epoch
+	 * @param end of the window (exclusive) as milliseconds since the epoch
+	 * @throws ParseException if the RRULE is invalid
+	 */
+	public Recurrence(SourceEvent series, Set<Long> replaced, long from, long to) throws ParseException {
+		this.series = series;
+		zone = series.getZone() == null ? ZoneId.systemDefault() : ZoneId.of(series.getZone());
+		
+		for(long exdate : series.getExDates()) {
+			skipped.add(exdate);
+		}
+		
+		skipped.addAll(replaced);
+		
+		long first = series.getStart();
+		long last = series.getStart();
+		for(long rdate : series.getRDates()) {
+			first = Math.min(first, rdate);
+			last = Math.max(last, rdate);
+		}
+		
+		if(series.getRRule() != null) {
+			recur = new Recur(series.getRRule());
+			
+			seed = new DateTime(wall(series.getStart()));
+			seed.setUtc(true);
+			
+			//UNTIL is compared with the real starts, a date includes the whole day
+			Date limit = recur.getUntil();
+			if(limit instanceof DateTime) {
+				until = limit.getTime();
+			}else if(limit != null) {
+				until = instant(limit.getTime() + MILLIS_PER_DAY - 1);
+			}
+			
+			//setting the until resets the count (they exclude each other)
+			if(limit != null) {
+				recur.setUntil(null);
+			}
+			
+			if(recur.getCount() >= 1) {
+				//the count includes the skipped occurrences, the series ends with its last occurrence
+				counted = new TreeSet<>();
+				DateTime periodEnd = new DateTime(to == Long.MAX_VALUE ? Long.MAX_VALUE / 2 : wall(to) + MILLIS_PER_DAY);
+				periodEnd.setUtc(true);
+				
+				for(Date date : recur.getDates(seed, seed, periodEnd, Value.DATE_TIME)) {
+					counted.add(instant(date.getTime()));
+				}
+				
+				if(!counted.isEmpty()) {
+					last = Math.max(last, counted.last());
+				}
+			}else if(until != Long.MAX_VALUE) {
+				last = Math.max(last, until);
+			}else {
+				last = to == Long.MAX_VALUE ? series.getStart() + UNBOUNDED_SPAN : Long.MAX_VALUE;
+			}
+		}
+		
+		cursor = Math.max(from, first);
+		end = Math.min(to, last == Long.MAX_VALUE ? last : last + 1);
+	}
+	
+	@Override
+	public boolean hasNext() {
+		while(pending.isEmpty() && cursor < end) {
+			long chunkEnd = end - cursor > CHUNK ? cursor + CHUNK : end;
+			expand(cursor, chunkEnd);
+			cursor = chunkEnd;
+		}
+		
+		return !pending.isEmpty();
+	}
+	
+	@Override
+	public SourceEvent next() {
+		if(!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		
+		long start = pending.pollFirst();
+		
+		return new SourceEvent(
+				series.getUid(),
+				series.getSummary(),
+				series.getStatus(),
+				start,
+				start + series.getEnd() - series.getStart(),
+				series.getZone(),
+				null,
+				null,
+				null,
+				start
+		);
+	}
+	
+	/**
+	 * Collects the starts of the occurrences inside of a chunk
+	 * @param start of the chunk as milliseconds since the epoch
+	 * @param end of the chunk (exclusive) as milliseconds since the epoch
+	 */
+	private void expand(long from, long to) {
+		add(series.getStart(), from, to);
+		
+		for(long rdate : series.getRDates()) {
+			add(rdate, from, to);
+		}
+		
+		if(recur == null) {
+			return;
+		}
+		
+		if(counted != null) {
+			for(long start : counted.subSet(from, to)) {
+				add(start, from, to);
+			}
+			
+			return;
+		}
+		
+		DateTime periodStart = new DateTime(wall(from) - MILLIS_PER_DAY);
+		periodStart.setUtc(true);
+		
+		DateTime periodEnd = new DateTime(wall(to) + MILLIS_PER_DAY);
+		periodEnd.setUtc(true);
+		
+		for(Date date : recur.getDates(seedBefore(periodStart.getTime()), periodStart, periodEnd, Value.DATE_TIME)) {
+			long start = instant(date.getTime());
+			
+			if(start <= until) {
+				add(start, from, to);
+			}
+		}
+	}
+	
+	/**
+	 * Moves the start of the series by whole periods of the rule (FREQ times INTERVAL) as close
+	 * as possible to the given time. Expanding the rule from there yields the same occurrences after
+	 * the given time, but does not step through all the periods before it. A monthly or yearly
+	 * series starting on a day which does not exist in every month is not moved
+	 * @param the wall-clock time the occurrences are of interest from
+	 * @return the start of the period not after the given time
+	 */
+	private DateTime seedBefore(long wall) {
+		LocalDateTime start = LocalDateTime.ofEpochSecond(Math.floorDiv(seed.getTime(), 1000), 0, ZoneOffset.UTC);
+		LocalDateTime limit = LocalDateTime.ofEpochSecond(Math.floorDiv(wall, 1000), 0, ZoneOffset.UTC);
+		
+		ChronoUnit unit;
+		switch(recur.getFrequency()) {
+			case Recur.SECONDLY: unit = ChronoUnit.SECONDS; break;
+			case Recur.MINUTELY: unit = ChronoUnit.MINUTES; break;
+			case Recur.HOURLY: unit = ChronoUnit.HOURS; break;
+			case Recur.DAILY: unit = ChronoUnit.DAYS; break;
+			case Recur.WEEKLY: unit = ChronoUnit.WEEKS; break;
+			case Recur.MONTHLY: unit = start.getDayOfMonth() > 28 ? null : ChronoUnit.MONTHS; break;
+			case Recur.YEARLY: unit = start.getMonthValue() == 2 && start.getDayOfMonth() == 29 ? null : ChronoUnit.YEARS; break;
+			default: unit = null;
+		}
+		
+		int interval = Math.max(1, recur.getInterval());
+		long periods = unit == null ? 0 : unit.between(start, limit) / interval * interval;
+		
+		if(periods <= 0) {
+			return seed;
+		}
+		
+		DateTime ret = new DateTime(start.plus(periods, unit).toInstant(ZoneOffset.UTC).toEpochMilli() + Math.floorMod(seed.getTime(), 1000));
+		ret.setUtc(true);
+		return ret;
+	}
+	
+	private void add(long start, long from, long to) {
+		if(start >= from && start < to && !skipped.contains(start)) {
+			pending.add(start);
+		}
+	}
+	
+	/**
+	 * Converts an instant to the wall-clock time of the time zone of the event
+	 * @param milliseconds since the epoch
+	 * @return the local time as if it was UTC
+	 */
+	private long wall(long instant) {
+		return Instant.ofEpochMilli(instant).atZone(zone).toLocalDateTime().toInstant(ZoneOffset.UTC).toEpochMilli();
+	}
+	
+	/**
+	 * Converts a wall-clock time of the time zone of the event to an instant
+	 * @param the local time as if it was UTC
+	 * @return milliseconds since the epoch
+	 */
+	private long instant(long wall) {
+		return LocalDateTime.ofEpochSecond(Math.floorDiv(wall, 1000), (int) Math.floorMod(wall, 1000) * 1000000, ZoneOffset.UTC)
+				.atZone(zone)
+				.toInstant()
+				.toEpochMilli();
+	}
+}
@@ -0,0 +1,85 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reserved timespans of a run. The free parts of the vacancies are looked up in this index and
+ * the placed chunks are added to it. The times are minutes (see DateRange). There are two
+ * backends: IntervalReservations keeps sorted timespans, BitsetReservations an occupancy
+ * timeline for dense calendars
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public interface ReservationIndex {
+	/**
+	 * Returned by findFree if there is no free timespan
+	 */
+	long NONE = Long.MIN_VALUE;
+	
+	/**
+	 * Reserves the timespan between start and end. Timespans without a duration are ignored
+	 * @param start in minutes
+	 * @param end in minutes
+	 */
+	void add(long start, long end);
+	
+	/**
+	 * Finds the first free timespan between from and to which lasts at least minLength
+	 * @param from in minutes
+	 * @param to in minutes
+	 * @param minimal length in minutes
+	 * @return start of the free timespan in minutes or NONE
+	 */
+	long findFree(long from, long to, long minLength);
+	
+	/**
+	 * Tests if the timespan between start and end does not collide with any reservation
+	 * @param start in minutes
+	 * @param end in minutes
+	 * @return true if nothing is reserved between start and end
+	 */
+	boolean isFree(long start, long end);
+	
+	/**
+	 * Returns the end of the free timespan starting at start
+	 * @param start of a free timespan in minutes (as returned by findFree)
+	 * @param to upper border in minutes
+	 * @return start of the next reservation or `to` if it comes first
+	 */
+	long freeEnd(long start, long to);
+	
+	/**
+	 * Reserves the given range. Ranges without a duration are ignored
+	 * @param the range to reserve
+	 */
+	default void add(DateRange range) {
+		add(range.getStartMinutes(), range.getEndMinutes());
+	}
+	
+	/**
+	 * Reserves all given ranges
+	 * @param the ranges to reserve
+	 */
+	default void addAll(List<DateRange> ranges) {
+		ranges.forEach(this::add);
+	}
+	
+	/**
+	 * Returns the parts of the given window which are not reserved
+	 * @param the window to look for free timespans
+	 * @return free ranges inside the window sorted in ascending order
+	 */
+	default List<DateRange> freeRanges(DateRange window) {
+		List<DateRange> ret = new ArrayList<>();
+		long to = window.getEndMinutes();
+		long cursor = findFree(window.getStartMinutes(), to, 1);
+		
+		while(cursor != NONE) {
+			long end = freeEnd(cursor, to);
+			ret.add(new DateRange(cursor, end));
+			cursor = findFree(end, to, 1);
+		}
+		
+		return ret;
+	}
+}
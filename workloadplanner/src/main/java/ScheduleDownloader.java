@@ -0,0 +1,319 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.security.MessageDigest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Downloads the ICS files of the schedules into an on-disk cache. Every URL is stored under
+ * the hash of the URL together with the ETag and Last-Modified header of the response. If a
+ * file is already cached the server is asked with a conditional request, so an unchanged
+ * schedule only costs a 304 response
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class ScheduleDownloader {
+	private File cacheDirectory;
+	private int connectTimeout = 10000;
+	private int readTimeout = 30000;
+	private int parallelism = 4;
+	private ConcurrentHashMap<String, CompletableFuture<File>> downloaded;
+	
+	/**
+	 * Constructor of ScheduleDownloader using a cache directory in the temp directory
+	 */
+	public ScheduleDownloader() {
+		this(new File(System.getProperty("java.io.tmpdir"), "workloadplanner-cache"));
+	}
+	
+	/**
+	 * Constructor of ScheduleDownloader
+	 * @param the directory holding the downloaded files
+	 */
+	public ScheduleDownloader(File cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+	
+	/**
+	 * Setter for the connect and read timeout
+	 * @param timeout in milliseconds (0 waits forever)
+	 * @throws Exception if the timeout is negative
+	 */
+	public void setTimeout(int timeout) {
+		setConnectTimeout(timeout);
+		setReadTimeout(timeout);
+	}
+	
+	/**
+	 * Setter for the connect timeout
+	 * @param timeout in milliseconds (0 waits forever)
+	 * @throws Exception if the timeout is negative
+	 */
+	public void setConnectTimeout(int timeout) {
+		if(timeout < 0) {
+			throw new RuntimeException("The timeout cannot be negative");
+		}
+		
+		connectTimeout = timeout;
+	}
+	
+	/**
+	 * Setter for the read timeout
+	 * @param timeout in milliseconds (0 waits forever)
+	 * @throws Exception if the timeout is negative
+	 */
+	public void setReadTimeout(int timeout) {
+		if(timeout < 0) {
+			throw new RuntimeException("The timeout cannot be negative");
+		}
+		
+		readTimeout = timeout;
+	}
+	
+	/**
+	 * Setter for the amount of downloads running at the same time
+	 * @param parallelism
+	 * @throws Exception if parallelism is less than 1
+	 */
+	public void setParallelism(int parallelism) {
+		if(parallelism < 1) {
+			throw new RuntimeException("The parallelism must be at least 1");
+		}
+		
+		this.parallelism = parallelism;
+	}
+	
+	/**
+	 * Setter whether every URL is only downloaded once during the lifetime of this downloader.
+	 * This is meant for planning many configurations at once which share their schedules
+	 * @param true to reuse the first download of every URL
+	 */
+	public void setReuseDownloads(boolean reuse) {
+		downloaded = reuse ? new ConcurrentHashMap<>() : null;
+	}
+	
+	/**
+	 * Getter for the cache directory
+	 * @return directory holding the downloaded files
+	 */
+	public File getCacheDirectory() {
+		return cacheDirectory;
+	}
+	
+	/**
+	 * Downloads all given URLs concurrently
+	 * @param the URLs to download
+	 * @return the cached files in the order of the given URLs
+	 * @throws Exception if one of the downloads fails
+	 */
+	public List<File> download(List<URL> urls) throws Exception {
+		List<File> ret = new ArrayList<>();
+		if(urls.isEmpty()) {
+			return ret;
+		}
+		
+		//the same URL is only downloaded once
+		Map<String, Future<File>> downloads = new LinkedHashMap<>();
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, urls.size()));
+		
+		try {
+			for(URL url : urls) {
+				downloads.computeIfAbsent(url.toString(), key -> pool.submit(() -> download(url)));
+			}
+			
+			for(URL url : urls) {
+				try {
+					ret.add(downloads.get(url.toString()).get());
+				}catch(ExecutionException e) {
+					if(e.getCause() instanceof Exception) {
+						throw (Exception) e.getCause();
+					}
+					
+					throw e;
+				}
+			}
+		}finally {
+			pool.shutdownNow();
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * Downloads the given URL into the cache. If the file has been downloaded before
+	 * the server is only asked for changes
+	 * @param the URL to download
+	 * @return the cached file
+	 * @throws IOException if the download fails
+	 */
+	public File download(URL url) throws IOException {
+		if(downloaded == null) {
+			return fetch(url);
+		}
+		
+		CompletableFuture<File> created = new CompletableFuture<>();
+		CompletableFuture<File> existing = downloaded.putIfAbsent(url.toString(), created);
+		
+		if(existing == null) {
+			try {
+				File file = fetch(url);
+				created.complete(file);
+				return file;
+			}catch(IOException | RuntimeException e) {
+				//a failed download is tried again by the next caller
+				downloaded.remove(url.toString(), created);
+				created.completeExceptionally(e);
+				throw e;
+			}
+		}
+		
+		try {
+			return existing.get();
+		}catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Waiting for the download of '" + url + "' has been interrupted");
+		}catch(ExecutionException e) {
+			if(e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			
+			throw new IOException("Downloading '" + url + "' failed", e.getCause());
+		}
+	}
+	
+	/**
+	 * Downloads the given URL into the cache without looking at the downloads of this downloader
+	 * @param the URL to download
+	 * @return the cached file
+	 * @throws IOException if the download fails
+	 */
+	private File fetch(URL url) throws IOException {
+		if(!cacheDirectory.isDirectory() && !cacheDirectory.mkdirs()) {
+			throw new IOException("The cache directory '" + cacheDirectory.getAbsolutePath() + "' cannot be created");
+		}
+		
+		String key = hash(url.toString());
+		File file = new File(cacheDirectory, key + ".ics");
+		File metaFile = new File(cacheDirectory, key + ".properties");
+		
+		Properties meta = new Properties();
+		if(file.isFile() && metaFile.isFile()) {
+			try(InputStream in = new FileInputStream(metaFile)) {
+				meta.load(in);
+			}
+		}
+		
+		URLConnection connection = url.openConnection();
+		connection.setConnectTimeout(connectTimeout);
+		connection.setReadTimeout(readTimeout);
+		
+		if(connection instanceof HttpURLConnection) {
+			HttpURLConnection http = (HttpURLConnection) connection;
+			
+			if(meta.getProperty("etag") != null) {
+				http.setRequestProperty("If-None-Match", meta.getProperty("etag"));
+			}
+			
+			if(meta.getProperty("lastModified") != null) {
+				http.setRequestProperty("If-Modified-Since", meta.getProperty("lastModified"));
+			}
+			
+			int status = http.getResponseCode();
+			
+			if(status == HttpURLConnection.HTTP_NOT_MODIFIED && file.isFile()) {
+				http.disconnect();
+				return file;
+			}
+			
+			if(status != HttpURLConnection.HTTP_OK) {
+				http.disconnect();
+				throw new IOException("Downloading '" + url + "' failed with status " + status);
+			}
+		}
+		
+		//write into a temporary file first, so a failed download never replaces the cached file
+		File temp = File.createTempFile(key, ".part", cacheDirectory);
+		
+		try {
+			try(InputStream in = connection.getInputStream()) {
+				Files.copy(in, temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			
+			//without the old validators the next request is unconditional if we stop before the new ones are written
+			Files.deleteIfExists(metaFile.toPath());
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}finally {
+			temp.delete();
+		}
+		
+		meta.clear();
+		if(connection.getHeaderField("ETag") != null) {
+			meta.setProperty("etag", connection.getHeaderField("ETag"));
+		}
+		
+		if(connection.getHeaderField("Last-Modified") != null) {
+			meta.setProperty("lastModified", connection.getHeaderField("Last-Modified"));
+		}
+		
+		meta.setProperty("url", url.toString());
+		
+		File metaTemp = File.createTempFile(key, ".part", cacheDirectory);
+		
+		try {
+			try(OutputStream out = new FileOutputStream(metaTemp)) {
+				meta.store(out, null);
+			}
+			
+			Files.move(metaTemp.toPath(), metaFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}finally {
+			metaTemp.delete();
+		}
+		
+		return file;
+	}
+	
+	/**
+	 * Hashes the given text with SHA-1
+	 * @param text
+	 * @return hash as hexadecimal string
+	 */
+	static String hash(String text) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(text.getBytes(StandardCharsets.UTF_8));
+			StringBuilder ret = new StringBuilder();
+			
+			for(byte b : digest) {
+				ret.append(String.format("%02x", b));
+			}
+			
+			return ret.toString();
+		}catch(Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
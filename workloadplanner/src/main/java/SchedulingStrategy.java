@@ -0,0 +1,45 @@
+import java.util.List;
+
+/**
+ * Places the hours of the tasks inside of the vacancies. The strategy gets all demands of a run
+ * at once and stores the placed chunks and the missing hours in the demands
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public interface SchedulingStrategy {
+	/**
+	 * Names of the available strategies
+	 */
+	String[] NAMES = {"greedy", "queue", "flow"};
+	
+	/**
+	 * Places the hours of the given demands. If the budget runs out the placing stops and the
+	 * hours which have not been placed yet are missing
+	 * @param the demands in the order of the events
+	 * @param the vacancies sorted by priority
+	 * @param the reservations which are not available (the placed chunks are added)
+	 * @param the metrics receiving the examined slots and collision checks
+	 * @param the budget spent for each slot check
+	 */
+	void place(List<Demand> demands, List<Vacancy> vacancies, ReservationIndex reservations, Metrics metrics, Budget budget);
+	
+	/**
+	 * Creates a strategy by its name
+	 * @param the name of the strategy (greedy, queue or flow)
+	 * @return the strategy
+	 * @throws Exception if the strategy is unknown
+	 */
+	static SchedulingStrategy of(String name) {
+		switch(name) {
+		case "greedy":
+			return new GreedyStrategy();
+		case "queue":
+			return new QueueStrategy();
+		case "flow":
+			return new FlowStrategy();
+		default:
+			throw new RuntimeException("Unknown strategy '" + name + "', use one of " + String.join(", ", NAMES));
+		}
+	}
+}
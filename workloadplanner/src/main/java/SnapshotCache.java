@@ -0,0 +1,215 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a compact binary snapshot of the events of each parsed ICS file. A snapshot belongs
+ * to the path, size and modification time of its source file and to the mode it has been read
+ * in, so an unchanged schedule can be loaded without parsing it again. Summaries, states and time zones are stored once in a
+ * string table since recurring events repeat them. Recurring events are stored unexpanded
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class SnapshotCache {
+	final static int MAGIC = 0x574c5053;
+	final static int VERSION = 4;
+	
+	private File directory;
+	
+	/**
+	 * Constructor of SnapshotCache
+	 * @param the directory holding the snapshots
+	 */
+	public SnapshotCache(File directory) {
+		this.directory = directory;
+	}
+	
+	/**
+	 * Loads the events of the given ICS file from its snapshot
+	 * @param the ICS file
+	 * @param true if the file is read in streaming mode (the modes keep different events)
+	 * @return the stored events or null if there is no snapshot for the current state of the file
+	 */
+	public List<SourceEvent> load(File source, boolean streaming) {
+		File snapshot = snapshotFile(source, streaming);
+		if(!snapshot.isFile()) {
+			return null;
+		}
+		
+		try(FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			
+			if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				return null;
+			}
+			
+			if(buffer.getLong() != source.length() || buffer.getLong() != source.lastModified() || (buffer.get() != 0) != streaming) {
+				return null;
+			}
+			
+			String[] strings = new String[buffer.getInt()];
+			for(int i = 0; i < strings.length; i++) {
+				strings[i] = readString(buffer);
+			}
+			
+			int count = buffer.getInt();
+			List<SourceEvent> ret = new ArrayList<>(count);
+			
+			for(int i = 0; i < count; i++) {
+				long start = buffer.getLong();
+				long end = buffer.getLong();
+				String uid = readString(buffer);
+				String summary = lookup(strings, buffer.getInt());
+				String status = lookup(strings, buffer.getInt());
+				String zone = lookup(strings, buffer.getInt());
+				String rrule = readString(buffer);
+				long[] rdates = readDates(buffer);
+				long[] exdates = readDates(buffer);
+				Long recurrenceId = buffer.get() == 0 ? null : buffer.getLong();
+				
+				ret.add(new SourceEvent(uid, summary, status, start, end, zone, rrule, rdates, exdates, recurrenceId));
+			}
+			
+			return ret;
+		}catch(Exception e) {
+			//a broken snapshot is treated like a missing one
+			return null;
+		}
+	}
+	
+	/**
+	 * Stores the events of the given ICS file as snapshot
+	 * @param the ICS file the events have been read from
+	 * @param true if the file has been read in streaming mode
+	 * @param size of the file before it has been read
+	 * @param modification time of the file before it has been read
+	 * @param the events of the file
+	 * @throws IOException if the snapshot cannot be written
+	 */
+	public void store(File source, boolean streaming, long length, long lastModified, List<SourceEvent> events) throws IOException {
+		if(!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("The snapshot directory '" + directory.getAbsolutePath() + "' cannot be created");
+		}
+		
+		//build the string table for summaries, states and time zones
+		Map<String, Integer> indices = new HashMap<>();
+		List<String> strings = new ArrayList<>();
+		
+		for(SourceEvent event : events) {
+			for(String value : new String[] {event.getSummary(), event.getStatus(), event.getZone()}) {
+				if(value != null && !indices.containsKey(value)) {
+					indices.put(value, strings.size());
+					strings.add(value);
+				}
+			}
+		}
+		
+		File snapshot = snapshotFile(source, streaming);
+		File temp = File.createTempFile(snapshot.getName(), ".part", directory);
+		
+		try {
+			try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(length);
+				out.writeLong(lastModified);
+				out.writeBoolean(streaming);
+				
+				out.writeInt(strings.size());
+				for(String value : strings) {
+					writeString(out, value);
+				}
+				
+				out.writeInt(events.size());
+				for(SourceEvent event : events) {
+					out.writeLong(event.getStart());
+					out.writeLong(event.getEnd());
+					writeString(out, event.getUid());
+					out.writeInt(event.getSummary() == null ? -1 : indices.get(event.getSummary()));
+					out.writeInt(event.getStatus() == null ? -1 : indices.get(event.getStatus()));
+					out.writeInt(event.getZone() == null ? -1 : indices.get(event.getZone()));
+					writeString(out, event.getRRule());
+					writeDates(out, event.getRDates());
+					writeDates(out, event.getExDates());
+					
+					out.writeBoolean(event.getRecurrenceId() != null);
+					if(event.getRecurrenceId() != null) {
+						out.writeLong(event.getRecurrenceId());
+					}
+				}
+			}
+			
+			Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}finally {
+			temp.delete();
+		}
+	}
+	
+	/**
+	 * Location of the snapshot for an ICS file
+	 * @param the ICS file
+	 * @param true if the file is read in streaming mode
+	 * @return file named after the hash of the absolute path and the mode
+	 */
+	private File snapshotFile(File source, boolean streaming) {
+		return new File(directory, ScheduleDownloader.hash(source.getAbsolutePath() + "|" + streaming) + ".snapshot");
+	}
+	
+	private static String lookup(String[] strings, int idx) {
+		return idx < 0 ? null : strings[idx];
+	}
+	
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if(value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	private static void writeDates(DataOutputStream out, long[] dates) throws IOException {
+		out.writeInt(dates.length);
+		for(long date : dates) {
+			out.writeLong(date);
+		}
+	}
+	
+	private static long[] readDates(ByteBuffer buffer) {
+		long[] ret = new long[buffer.getInt()];
+		for(int i = 0; i < ret.length; i++) {
+			ret[i] = buffer.getLong();
+		}
+		
+		return ret.length == 0 ? null : ret;
+	}
+	
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if(length < 0) {
+			return null;
+		}
+		
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
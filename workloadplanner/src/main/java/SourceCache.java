@@ -0,0 +1,75 @@
+import java.io.File;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Keeps the events of the parsed ICS files in memory, so several configurations planned in
+ * the same JVM read a shared schedule only once. An entry belongs to the path, size and
+ * modification time of its file, the entries of former versions are dropped once a changed
+ * file is read. If the same file is requested while it is being read, the caller waits for
+ * the result instead of reading it again
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class SourceCache {
+	private ConcurrentHashMap<String, CompletableFuture<List<SourceEvent>>> sources = new ConcurrentHashMap<>();
+	
+	/**
+	 * Returns the events of an ICS file and reads them if they are not cached yet
+	 * @param location of the ICS file
+	 * @param true if the file is read in streaming mode (the modes keep different events)
+	 * @param reads the events if they are not cached
+	 * @return the events of the file (must not be modified)
+	 * @throws Exception if the file cannot be read
+	 */
+	public List<SourceEvent> get(File path, boolean streaming, Loader loader) throws Exception {
+		String file = path.getAbsolutePath() + "|";
+		String version = file + path.length() + "|" + path.lastModified() + "|";
+		String key = version + streaming;
+		
+		CompletableFuture<List<SourceEvent>> created = new CompletableFuture<>();
+		CompletableFuture<List<SourceEvent>> existing = sources.putIfAbsent(key, created);
+		
+		if(existing == null) {
+			//the file has changed, the events of its former versions are not needed anymore
+			sources.keySet().removeIf(other -> other.startsWith(file) && !other.startsWith(version));
+			
+			try {
+				created.complete(loader.load());
+			}catch(Exception e) {
+				//a failed file is read again by the next caller
+				sources.remove(key, created);
+				created.completeExceptionally(e);
+				throw e;
+			}
+			
+			return created.get();
+		}
+		
+		try {
+			return existing.get();
+		}catch(ExecutionException e) {
+			if(e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			
+			throw e;
+		}
+	}
+	
+	/**
+	 * Reads the events of an ICS file
+	 */
+	public interface Loader {
+		/**
+		 * Reads the events
+		 * @return all events of the file
+		 * @throws Exception if the file cannot be read
+		 */
+		List<SourceEvent> load() throws Exception;
+	}
+}
@@ -0,0 +1,305 @@
+import java.time.DateTimeException;
+import java.time.ZoneId;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import net.fortuna.ical4j.model.DateTime;
+import net.fortuna.ical4j.model.Period;
+import net.fortuna.ical4j.model.Property;
+import net.fortuna.ical4j.model.component.VEvent;
+import net.fortuna.ical4j.model.property.DateListProperty;
+import net.fortuna.ical4j.model.property.RDate;
+
+/**
+ * Immutable class holding the properties of an event from a schedule which are needed for the planning.
+ * Unlike a VEvent it does not keep the whole component tree of ical4j in memory. A recurring event
+ * keeps its RRULE, RDATE and EXDATE values, its occurrences are created by Recurrence
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class SourceEvent {
+	private String uid;
+	private String summary;
+	private String status;
+	private long start;
+	private long end;
+	
+	private long startMinutes;
+	private long endMinutes;
+	
+	private String zone;
+	private String rrule;
+	private long[] rdates;
+	private long[] exdates;
+	private Long recurrenceId;
+	
+	/**
+	 * Constructor for a SourceEvent which does not recur
+	 * @param uid of the event (can be null)
+	 * @param summary of the event (can be null)
+	 * @param status of the event (can be null)
+	 * @param start as milliseconds since the epoch
+	 * @param end as milliseconds since the epoch
+	 */
+	public SourceEvent(String uid, String summary, String status, long start, long end) {
+		this(uid, summary, status, start, end, null, null, null, null, null);
+	}
+	
+	/**
+	 * Constructor for SourceEvent
+	 * @param uid of the event (can be null)
+	 * @param summary of the event (can be null)
+	 * @param status of the event (can be null)
+	 * @param start as milliseconds since the epoch
+	 * @param end as milliseconds since the epoch
+	 * @param time zone of the start (UTC for dates, null for the local time zone)
+	 * @param value of the RRULE (can be null)
+	 * @param RDATE values as milliseconds since the epoch (can be null)
+	 * @param EXDATE values as milliseconds since the epoch (can be null)
+	 * @param RECURRENCE-ID as milliseconds since the epoch (can be null)
+	 */
+	public SourceEvent(String uid, String summary, String status, long start, long end, String zone, String rrule, long[] rdates, long[] exdates, Long recurrenceId) {
+		this.uid = uid;
+		this.summary = summary;
+		this.status = status;
+		this.start = start;
+		this.end = end;
+		this.zone = zone;
+		this.rrule = rrule;
+		this.rdates = rdates == null ? new long[0] : rdates;
+		this.exdates = exdates == null ? new long[0] : exdates;
+		this.recurrenceId = recurrenceId;
+		
+		startMinutes = DateRange.toMinutes(new Date(start));
+		endMinutes = DateRange.toMinutes(new Date(end));
+	}
+	
+	/**
+	 * Creates a SourceEvent from a parsed ical4j event
+	 * @param the parsed event
+	 * @return the properties of the event needed for the planning
+	 */
+	public static SourceEvent of(VEvent event) {
+		net.fortuna.ical4j.model.Date date = event.getStartDate().getDate();
+		long start = date.getTime();
+		long end = event.getEndDate() == null ? start : event.getEndDate().getDate().getTime();
+		
+		//dates are midnight UTC, floating times are in the local time zone
+		String zone = "UTC";
+		if(date instanceof DateTime && !((DateTime) date).isUtc()) {
+			zone = null;
+			
+			//unknown identifiers fall back to the local time zone
+			if(((DateTime) date).getTimeZone() != null) {
+				ZoneId resolved = zone(((DateTime) date).getTimeZone().getID());
+				zone = resolved == null ? null : resolved.getId();
+			}
+		}
+		
+		Property rrule = event.getProperty(Property.RRULE);
+		
+		return new SourceEvent(
+				event.getUid() == null ? null : event.getUid().getValue(),
+				event.getSummary() == null ? null : event.getSummary().getValue(),
+				event.getStatus() == null ? null : event.getStatus().getValue(),
+				start,
+				end,
+				zone,
+				rrule == null ? null : rrule.getValue(),
+				dates(event, Property.RDATE),
+				dates(event, Property.EXDATE),
+				event.getRecurrenceId() == null ? null : event.getRecurrenceId().getDate().getTime()
+		);
+	}
+	
+	/**
+	 * Resolves a TZID. Prefixes like "/mozilla.org/20050126_1/" are stripped
+	 * @param the TZID
+	 * @return the time zone or null if the identifier is unknown
+	 */
+	static ZoneId zone(String tzid) {
+		String candidate = tzid;
+		
+		while(true) {
+			try {
+				return ZoneId.of(candidate);
+			}catch(DateTimeException e) {
+				int slash = candidate.indexOf('/');
+				if(slash < 0) {
+					return null;
+				}
+				
+				candidate = candidate.substring(slash + 1);
+			}
+		}
+	}
+	
+	/**
+	 * Collects the values of all RDATE or EXDATE properties of an event
+	 * @param the parsed event
+	 * @param name of the property
+	 * @return the dates (start of the periods) as milliseconds since the epoch or null
+	 */
+	private static long[] dates(VEvent event, String name) {
+		List<Long> ret = new ArrayList<>();
+		
+		for(Property property : event.getProperties().getProperties(name)) {
+			if(property instanceof RDate && ((RDate) property).getPeriods() != null) {
+				for(Period period : ((RDate) property).getPeriods()) {
+					ret.add(period.getStart().getTime());
+				}
+			}
+			
+			if(((DateListProperty) property).getDates() != null) {
+				for(net.fortuna.ical4j.model.Date value : ((DateListProperty) property).getDates()) {
+					ret.add(value.getTime());
+				}
+			}
+		}
+		
+		return ret.isEmpty() ? null : ret.stream().mapToLong(Long::longValue).toArray();
+	}
+	
+	/**
+	 * Getter for the property uid
+	 * @return uid of the event or null
+	 */
+	public String getUid() {
+		return uid;
+	}
+	
+	/**
+	 * Getter for the property summary
+	 * @return summary of the event or null
+	 */
+	public String getSummary() {
+		return summary;
+	}
+	
+	/**
+	 * Getter for the property status
+	 * @return status of the event or null
+	 */
+	public String getStatus() {
+		return status;
+	}
+	
+	/**
+	 * Tests if the event has the status CONFIRMED
+	 * @return true if the event is confirmed
+	 */
+	public boolean isConfirmed() {
+		return "CONFIRMED".equals(status);
+	}
+	
+	/**
+	 * Getter for the property zone
+	 * @return time zone of the start (UTC for dates) or null for the local time zone
+	 */
+	public String getZone() {
+		return zone;
+	}
+	
+	/**
+	 * Getter for the property rrule
+	 * @return value of the RRULE or null
+	 */
+	public String getRRule() {
+		return rrule;
+	}
+	
+	/**
+	 * Getter for the property rdates
+	 * @return additional starts as milliseconds since the epoch
+	 */
+	public long[] getRDates() {
+		return rdates;
+	}
+	
+	/**
+	 * Getter for the property exdates
+	 * @return excluded starts as milliseconds since the epoch
+	 */
+	public long[] getExDates() {
+		return exdates;
+	}
+	
+	/**
+	 * Getter for the property recurrenceId
+	 * @return start of the replaced occurrence as milliseconds since the epoch or null
+	 */
+	public Long getRecurrenceId() {
+		return recurrenceId;
+	}
+	
+	/**
+	 * Tests if the event defines a series of occurrences
+	 * @return true if the event has a RRULE or RDATE
+	 */
+	public boolean isRecurring() {
+		return rrule != null || rdates.length > 0;
+	}
+	
+	/**
+	 * Getter for the property start
+	 * @return start as milliseconds since the epoch
+	 */
+	public long getStart() {
+		return start;
+	}
+	
+	/**
+	 * Getter for the property end
+	 * @return end as milliseconds since the epoch
+	 */
+	public long getEnd() {
+		return end;
+	}
+	
+	/**
+	 * Getter for the start in local time
+	 * @return start in minutes (see DateRange)
+	 */
+	public long getStartMinutes() {
+		return startMinutes;
+	}
+	
+	/**
+	 * Getter for the end in local time
+	 * @return end in minutes (see DateRange)
+	 */
+	public long getEndMinutes() {
+		return endMinutes;
+	}
+	
+	/**
+	 * Getter for the start
+	 * @return start as java.util.Date
+	 */
+	public Date getStartDate() {
+		return new Date(start);
+	}
+	
+	/**
+	 * Getter for the end
+	 * @return end as java.util.Date
+	 */
+	public Date getEndDate() {
+		return new Date(end);
+	}
+	
+	/**
+	 * The range which is blocked by this event
+	 * @param tolerance in hours which will be added before and after the event
+	 * @return the blocked range
+	 */
+	public DateRange getRange(long tolerance) {
+		return new DateRange(
+				startMinutes - tolerance * DateRange.MINUTES_PER_HOUR,
+				endMinutes + tolerance * DateRange.MINUTES_PER_HOUR
+		);
+	}
+}
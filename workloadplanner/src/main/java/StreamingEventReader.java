@@ -0,0 +1,392 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads the events of an ICS file line by line without building the component tree of ical4j.
+ * Only the properties needed for the planning (UID, SUMMARY, STATUS, DTSTART, DTEND, DURATION and
+ * the recurrence properties RRULE, RDATE, EXDATE and RECURRENCE-ID) are kept and every event is
+ * handed over as soon as its END:VEVENT line has been read.
+ * The values are interpreted the same way as ical4j does it (dates are midnight UTC, floating
+ * times are in the local time zone)
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class StreamingEventReader {
+	final static long MILLIS_PER_DAY = 24 * 60 * 60 * 1000;
+	
+	private boolean confirmedOnly;
+	private Map<String, ZoneId> zones = new HashMap<>();
+	
+	/**
+	 * Constructor of StreamingEventReader
+	 * @param if true events without the status CONFIRMED are skipped (except for events replacing an occurrence)
+	 */
+	public StreamingEventReader(boolean confirmedOnly) {
+		this.confirmedOnly = confirmedOnly;
+	}
+	
+	/**
+	 * Reads all events of the given ICS file
+	 * @param location of the ICS file
+	 * @param receives each event
+	 * @throws IOException if the file cannot be read or contains an invalid date
+	 */
+	public void read(File path, Consumer<SourceEvent> consumer) throws IOException {
+		try(BufferedReader reader = new BufferedReader(Channels.newReader(
+				FileChannel.open(path.toPath(), StandardOpenOption.READ),
+				StandardCharsets.UTF_8.newDecoder(),
+				-1
+		), 1 << 16)) {
+			EventBuilder event = null;
+			int depth = 0;
+			int lineNumber = 0;
+			
+			String line = reader.readLine();
+			while(line != null) {
+				lineNumber++;
+				
+				//unfold the following lines
+				String next = reader.readLine();
+				if(next != null && isContinuation(next)) {
+					StringBuilder unfolded = new StringBuilder(line);
+					
+					while(next != null && isContinuation(next)) {
+						lineNumber++;
+						unfolded.append(next, 1, next.length());
+						next = reader.readLine();
+					}
+					
+					line = unfolded.toString();
+				}
+				
+				if(line.startsWith("BEGIN:")) {
+					if(event != null) {
+						//component inside of an event (e.g. VALARM)
+						depth++;
+					}else if(line.equals("BEGIN:VEVENT")) {
+						event = new EventBuilder();
+					}
+				}else if(line.startsWith("END:")) {
+					if(event != null) {
+						if(depth > 0) {
+							depth--;
+						}else {
+							//a cancelled replacement still removes its occurrence from the series
+							if(!confirmedOnly || "CONFIRMED".equals(event.status) || event.recurrenceId != null) {
+								consumer.accept(event.build());
+							}
+							
+							event = null;
+						}
+					}
+				}else if(event != null && depth == 0) {
+					try {
+						readProperty(event, line);
+					}catch(DateTimeException | IllegalArgumentException e) {
+						throw new IOException("Invalid value in " + path + " at line " + lineNumber + ": " + line, e);
+					}
+				}
+				
+				line = next;
+			}
+		}
+	}
+	
+	private static boolean isContinuation(String line) {
+		return !line.isEmpty() && (line.charAt(0) == ' ' || line.charAt(0) == '\t');
+	}
+	
+	/**
+	 * Stores the value of a property in the builder if it is needed for the planning
+	 * @param the builder of the current event
+	 * @param the unfolded content line
+	 */
+	private void readProperty(EventBuilder event, String line) {
+		int nameEnd = 0;
+		while(nameEnd < line.length() && line.charAt(nameEnd) != ';' && line.charAt(nameEnd) != ':') {
+			nameEnd++;
+		}
+		
+		String name = line.substring(0, nameEnd);
+		
+		//only look at the properties we need
+		switch(name) {
+		case "UID":
+		case "SUMMARY":
+		case "STATUS":
+		case "DTSTART":
+		case "DTEND":
+		case "DURATION":
+		case "RRULE":
+		case "RDATE":
+		case "EXDATE":
+		case "RECURRENCE-ID":
+			break;
+		default:
+			return;
+		}
+		
+		//find the separator between parameters and value (quoted parameter values can contain a colon)
+		int valueStart = nameEnd;
+		boolean quoted = false;
+		while(valueStart < line.length() && (quoted || line.charAt(valueStart) != ':')) {
+			if(line.charAt(valueStart) == '"') {
+				quoted = !quoted;
+			}
+			
+			valueStart++;
+		}
+		
+		if(valueStart >= line.length()) {
+			return;
+		}
+		
+		String params = line.substring(nameEnd, valueStart);
+		String value = line.substring(valueStart + 1);
+		
+		switch(name) {
+		case "UID":
+			event.uid = value;
+			break;
+		case "SUMMARY":
+			event.summary = unescape(value);
+			break;
+		case "STATUS":
+			event.status = value.trim();
+			break;
+		case "DTSTART":
+			event.start = parseDate(params, value);
+			event.startIsDate = value.indexOf('T') < 0;
+			event.zone = parseZone(params, value);
+			break;
+		case "DTEND":
+			event.end = parseDate(params, value);
+			break;
+		case "DURATION":
+			event.duration = parseDuration(value.trim());
+			break;
+		case "RRULE":
+			event.rrule = value.trim();
+			break;
+		case "RDATE":
+			parseDates(params, value, event.rdates);
+			break;
+		case "EXDATE":
+			parseDates(params, value, event.exdates);
+			break;
+		case "RECURRENCE-ID":
+			event.recurrenceId = parseDate(params, value);
+			break;
+		}
+	}
+	
+	/**
+	 * Parses a DATE or DATE-TIME value
+	 * @param the parameters of the property (e.g. ;TZID=Europe/Zurich)
+	 * @param the value of the property
+	 * @return milliseconds since the epoch
+	 */
+	private long parseDate(String params, String value) {
+		value = value.trim();
+		
+		int year = Integer.parseInt(value.substring(0, 4));
+		int month = Integer.parseInt(value.substring(4, 6));
+		int day = Integer.parseInt(value.substring(6, 8));
+		
+		if(value.length() < 15) {
+			//DATE values are midnight UTC
+			return LocalDate.of(year, month, day).toEpochDay() * MILLIS_PER_DAY;
+		}
+		
+		LocalDateTime date = LocalDateTime.of(
+				year,
+				month,
+				day,
+				Integer.parseInt(value.substring(9, 11)),
+				Integer.parseInt(value.substring(11, 13)),
+				Integer.parseInt(value.substring(13, 15))
+		);
+		
+		ZoneId zone;
+		if(value.endsWith("Z")) {
+			zone = ZoneOffset.UTC;
+		}else {
+			String tzid = parameter(params, "TZID");
+			zone = tzid == null ? ZoneId.systemDefault() : zone(tzid);
+		}
+		
+		return date.atZone(zone).toInstant().toEpochMilli();
+	}
+	
+	/**
+	 * Parses a comma separated list of DATE, DATE-TIME or PERIOD values
+	 * @param the parameters of the property
+	 * @param the value of the property
+	 * @param receives the dates (start of the periods) as milliseconds since the epoch
+	 */
+	private void parseDates(String params, String value, List<Long> dates) {
+		for(String date : value.split(",")) {
+			int period = date.indexOf('/');
+			dates.add(parseDate(params, period < 0 ? date : date.substring(0, period)));
+		}
+	}
+	
+	/**
+	 * Finds the time zone a DATE or DATE-TIME value has been given in
+	 * @param the parameters of the property
+	 * @param the value of the property
+	 * @return UTC for dates and UTC times, the TZID or null for floating times
+	 */
+	private String parseZone(String params, String value) {
+		value = value.trim();
+		
+		if(value.length() < 15 || value.endsWith("Z")) {
+			return "UTC";
+		}
+		
+		String tzid = parameter(params, "TZID");
+		return tzid == null ? null : zone(tzid).getId();
+	}
+	
+	/**
+	 * Resolves a TZID like SourceEvent.of does it. Unknown identifiers fall back to the local time zone
+	 * @param the TZID parameter
+	 * @return the time zone
+	 */
+	private ZoneId zone(String tzid) {
+		return zones.computeIfAbsent(tzid, id -> {
+			ZoneId zone = SourceEvent.zone(id);
+			return zone == null ? ZoneId.systemDefault() : zone;
+		});
+	}
+	
+	/**
+	 * Parses a DURATION value (e.g. PT1H30M, P1D or P2W)
+	 * @param the value of the property
+	 * @return the duration in milliseconds
+	 */
+	private static long parseDuration(String value) {
+		int weeks = value.indexOf('W');
+		if(weeks >= 0) {
+			boolean negative = value.startsWith("-");
+			long amount = Long.parseLong(value.substring(value.indexOf('P') + 1, weeks));
+			return (negative ? -amount : amount) * 7 * MILLIS_PER_DAY;
+		}
+		
+		return Duration.parse(value).toMillis();
+	}
+	
+	/**
+	 * Extracts a parameter value from the parameter part of a content line
+	 * @param the parameters (e.g. ;TZID=Europe/Zurich;VALUE=DATE-TIME)
+	 * @param the name of the parameter
+	 * @return value without quotes or null
+	 */
+	private static String parameter(String params, String name) {
+		int idx = params.indexOf(";" + name + "=");
+		if(idx < 0) {
+			return null;
+		}
+		
+		int start = idx + name.length() + 2;
+		if(start < params.length() && params.charAt(start) == '"') {
+			return params.substring(start + 1, params.indexOf('"', start + 1));
+		}
+		
+		int end = params.indexOf(';', start);
+		return params.substring(start, end < 0 ? params.length() : end);
+	}
+	
+	/**
+	 * Removes the escaping of a TEXT value
+	 * @param the escaped text
+	 * @return the unescaped text
+	 */
+	private static String unescape(String value) {
+		if(value.indexOf('\\') < 0) {
+			return value;
+		}
+		
+		StringBuilder ret = new StringBuilder(value.length());
+		
+		for(int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			
+			if(c == '\\' && i + 1 < value.length()) {
+				char escaped = value.charAt(++i);
+				ret.append(escaped == 'n' || escaped == 'N' ? '\n' : escaped);
+			}else {
+				ret.append(c);
+			}
+		}
+		
+		return ret.toString();
+	}
+	
+	/**
+	 * Collects the properties of the event which is currently read
+	 */
+	private static class EventBuilder {
+		String uid;
+		String summary;
+		String status;
+		Long start;
+		Long end;
+		Long duration;
+		boolean startIsDate;
+		String zone;
+		String rrule;
+		List<Long> rdates = new ArrayList<>();
+		List<Long> exdates = new ArrayList<>();
+		Long recurrenceId;
+		
+		SourceEvent build() throws IOException {
+			if(start == null) {
+				throw new IOException("The event '" + summary + "' has no DTSTART");
+			}
+			
+			long to;
+			if(end != null) {
+				to = end;
+			}else if(duration != null) {
+				to = start + duration;
+			}else {
+				//same default as ical4j: dates last one day, date-times have no duration
+				to = startIsDate ? start + MILLIS_PER_DAY : start;
+			}
+			
+			return new SourceEvent(
+					uid,
+					summary,
+					status,
+					start,
+					to,
+					zone,
+					rrule,
+					rdates.isEmpty() ? null : rdates.stream().mapToLong(Long::longValue).toArray(),
+					exdates.isEmpty() ? null : exdates.stream().mapToLong(Long::longValue).toArray(),
+					recurrenceId
+			);
+		}
+	}
+}
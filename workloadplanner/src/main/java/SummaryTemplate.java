@@ -0,0 +1,157 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Immutable name of a task compiled into literal text and placeholders (e.g. {page.index}).
+ * Rendering appends the segments in a single pass and asks only for the values of the
+ * placeholders which occur in the name. Unknown placeholders are kept as literal text
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class SummaryTemplate {
+	/**
+	 * Placeholders which can be used in the name of a task (see README)
+	 */
+	public enum Placeholder {
+		PAGE_INDEX("page.index"),
+		PAGE_TOTAL("page.total"),
+		EVENT_NAME("event.name"),
+		EVENT_START("event.start"),
+		EVENT_END("event.end"),
+		EVENT_DURATION("event.duration"),
+		FROM("from"),
+		TO("to"),
+		DURATION("duration");
+		
+		private String name;
+		
+		Placeholder(String name) {
+			this.name = name;
+		}
+		
+		/**
+		 * Getter for the property name
+		 * @return name of the placeholder without braces
+		 */
+		public String getName() {
+			return name;
+		}
+		
+		/**
+		 * Finds a placeholder by its name
+		 * @param name without braces
+		 * @return the placeholder or null if there is none with this name
+		 */
+		public static Placeholder of(String name) {
+			for(Placeholder placeholder : values()) {
+				if(placeholder.name.equals(name)) {
+					return placeholder;
+				}
+			}
+			
+			return null;
+		}
+	}
+	
+	private String template;
+	private String[] literals;
+	private Placeholder[] placeholders;
+	
+	/**
+	 * Constructor of SummaryTemplate
+	 * @param the name of a task containing placeholders
+	 */
+	public SummaryTemplate(String template) {
+		this.template = template;
+		
+		List<String> literals = new ArrayList<>();
+		List<Placeholder> placeholders = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		
+		int idx = 0;
+		while(idx < template.length()) {
+			int open = template.indexOf('{', idx);
+			int close = open < 0 ? -1 : template.indexOf('}', open);
+			
+			if(close < 0) {
+				literal.append(template, idx, template.length());
+				break;
+			}
+			
+			Placeholder placeholder = Placeholder.of(template.substring(open + 1, close));
+			
+			if(placeholder == null) {
+				//not a placeholder - keep the brace and look for the next one
+				literal.append(template, idx, open + 1);
+				idx = open + 1;
+				continue;
+			}
+			
+			literal.append(template, idx, open);
+			literals.add(literal.toString());
+			placeholders.add(placeholder);
+			
+			literal.setLength(0);
+			idx = close + 1;
+		}
+		
+		literals.add(literal.toString());
+		
+		this.literals = literals.toArray(new String[literals.size()]);
+		this.placeholders = placeholders.toArray(new Placeholder[placeholders.size()]);
+	}
+	
+	/**
+	 * Getter for the property template
+	 * @return the name passed to the constructor
+	 */
+	public String getTemplate() {
+		return template;
+	}
+	
+	/**
+	 * Tests if the given placeholder occurs in the template
+	 * @param the placeholder
+	 * @return true if the value of the placeholder is needed for rendering
+	 */
+	public boolean uses(Placeholder placeholder) {
+		for(Placeholder used : placeholders) {
+			if(used == placeholder) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Replaces the placeholders with their values
+	 * @param calculates the value of a placeholder, it is called at most once per placeholder
+	 * @return the rendered text
+	 */
+	public String render(Function<Placeholder, String> values) {
+		if(placeholders.length == 0) {
+			return literals[0];
+		}
+		
+		String[] cache = new String[Placeholder.values().length];
+		StringBuilder ret = new StringBuilder(template.length() + 32);
+		
+		for(int i = 0; i < placeholders.length; i++) {
+			ret.append(literals[i]);
+			
+			int ordinal = placeholders[i].ordinal();
+			if(cache[ordinal] == null) {
+				cache[ordinal] = values.apply(placeholders[i]);
+			}
+			
+			ret.append(cache[ordinal]);
+		}
+		
+		ret.append(literals[placeholders.length]);
+		
+		return ret.toString();
+	}
+}
@@ -9,6 +9,7 @@ public class Task {
 	private boolean isBefore;
 	private int duration;
 	private String name;
+	private SummaryTemplate template;
 	
 	/**
 	 * Constructor for the immutable class Task
@@ -24,6 +25,7 @@ public class Task {
 		}
 
 		this.name = name;
+		this.template = new SummaryTemplate(name);
 		this.duration = duration;
 		this.isBefore = isBefore;
 	}
@@ -36,6 +38,14 @@ public class Task {
 		return name;
 	}
 	
+	/**
+	 * Getter for the compiled name
+	 * @return name of the task compiled into literal text and placeholders
+	 */
+	public SummaryTemplate getTemplate() {
+		return template;
+	}
+	
 	/**
 	 * Getter for the property before
 	 * @return true if the task should occur before the event 
@@ -14,6 +14,8 @@ public class Vacancy {
 	private LocalTime start;
 	private LocalTime end;
 	private int priority;
+	private int startMinutes;
+	private int endMinutes;
 	
 	public Vacancy(int weekday, String start, String end, int priority) {
 		if(weekday < 1 || weekday > 7) {
@@ -26,6 +28,8 @@ public class Vacancy {
 		
 		this.start = LocalTime.parse(start, form);
 		this.end = LocalTime.parse(end, form);
+		this.startMinutes = this.start.getHour() * 60 + this.start.getMinute();
+		this.endMinutes = this.end.getHour() * 60 + this.end.getMinute();
 		this.priority = priority;
 	}
 	
@@ -87,6 +91,15 @@ public class Vacancy {
 		return weekday == date.getDayOfWeek().getValue();
 	}
 	
+	/**
+	 * Test if this vacancy has the same weekday as the given date
+	 * @param the date in minutes (see DateRange) to test for the weekday
+	 * @return true if the given date and this vacancy have the same weekday
+	 */
+	public boolean sameWeekday(long minutes) {
+		return weekday == DateRange.weekday(minutes);
+	}
+	
 	/**
 	 * Creates a DateRange with the start and end time of this vacancy for a given date
 	 * @param the date which the start and end time should be applied to
@@ -97,6 +110,26 @@ public class Vacancy {
 		return new DateRange(getStart(date), getEnd(date));
 	}
 	
+	/**
+	 * Creates a DateRange with the start and end time of this vacancy for a given date
+	 * @param the date in minutes (see DateRange) which the start and end time should be applied to
+	 * @return a DateRange with start and end time of the vacancy for the given date
+	 * @throws Exception
+	 */
+	public DateRange getRange(long minutes) {
+		long day = minutes - Math.floorMod(minutes, DateRange.MINUTES_PER_DAY);
+		return new DateRange(day + startMinutes, day + endMinutes);
+	}
+	
+	/**
+	 * Finds the next date on the weekday of this vacancy
+	 * @param the date in minutes (see DateRange) to start from
+	 * @return the given date moved forward by whole days until it has the weekday of this vacancy
+	 */
+	public long nextWeekday(long minutes) {
+		return minutes + Math.floorMod(weekday - DateRange.weekday(minutes), 7) * DateRange.MINUTES_PER_DAY;
+	}
+	
 	/**
 	 * Prints the vacancy
 	 */
@@ -0,0 +1,63 @@
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily expands vacancies into the concrete time slots inside a window. The slots are returned
+ * in the order of the given vacancies and chronologically for each vacancy. Days with another
+ * weekday than the vacancy are jumped over instead of being visited
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class VacancySlots implements Iterator<DateRange> {
+	final static long MINUTES_PER_WEEK = 7 * DateRange.MINUTES_PER_DAY;
+	
+	private List<Vacancy> vacancies;
+	private DateRange window;
+	private int vacancyIdx = -1;
+	private long date;
+	
+	/**
+	 * Constructor of VacancySlots
+	 * @param the vacancies in the order their slots should be returned (usually sorted by priority)
+	 * @param the window in which the slots should occur. Like the days are visited the time of
+	 * the window start is kept, so a slot on the first or last day can exceed the window
+	 */
+	public VacancySlots(List<Vacancy> vacancies, DateRange window) {
+		this.vacancies = vacancies;
+		this.window = window;
+		
+		nextVacancy();
+	}
+	
+	/**
+	 * Moves to the first date of the next vacancy which has at least one slot in the window
+	 */
+	private void nextVacancy() {
+		do {
+			vacancyIdx++;
+		}while(vacancyIdx < vacancies.size() && (date = vacancies.get(vacancyIdx).nextWeekday(window.getStartMinutes())) >= window.getEndMinutes());
+	}
+	
+	@Override
+	public boolean hasNext() {
+		return vacancyIdx < vacancies.size();
+	}
+	
+	@Override
+	public DateRange next() {
+		if(!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		
+		DateRange ret = vacancies.get(vacancyIdx).getRange(date);
+		
+		date += MINUTES_PER_WEEK;
+		if(date >= window.getEndMinutes()) {
+			nextVacancy();
+		}
+		
+		return ret;
+	}
+}
@@ -0,0 +1,122 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the occupancy timeline of BitsetReservations
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class BitsetReservationsTest {
+	private static final long BUCKET = 15;
+	
+	@Test
+	public void alignedInputMatchesIntervalReservations() {
+		Random random = new Random(7);
+		
+		for(int round = 0; round < 300; round++) {
+			IntervalReservations interval = new IntervalReservations();
+			BitsetReservations bitset = new BitsetReservations(BUCKET);
+			long base = (random.nextInt(2000) - 1000) * BUCKET;
+			
+			for(int idx = random.nextInt(40); idx > 0; idx--) {
+				//every third reservation lies far before the others to grow the timeline to the left
+				long start = base + random.nextInt(3000) * BUCKET - (random.nextInt(3) == 0 ? 20000 * BUCKET : 0);
+				long end = start + (1 + random.nextInt(40)) * BUCKET;
+				
+				interval.add(start, end);
+				bitset.add(start, end);
+			}
+			
+			for(int query = 0; query < 100; query++) {
+				long from = base + (random.nextInt(4000) - 1000) * BUCKET;
+				long to = from + random.nextInt(400) * BUCKET;
+				long minLength = 1 + random.nextInt(120);
+				
+				long free = interval.findFree(from, to, minLength);
+				assertEquals(free, bitset.findFree(from, to, minLength));
+				
+				if(free != ReservationIndex.NONE) {
+					assertEquals(interval.freeEnd(free, to), bitset.freeEnd(free, to));
+				}
+				
+				if(from < to) {
+					assertEquals(interval.isFree(from, to), bitset.isFree(from, to));
+				}
+				
+				DateRange window = new DateRange(from, to);
+				assertEquals(IntervalReservationsTest.format(interval.freeRanges(window)), IntervalReservationsTest.format(bitset.freeRanges(window)));
+			}
+		}
+	}
+	
+	@Test
+	public void reservationCrossesWords() {
+		BitsetReservations reservations = new BitsetReservations(BUCKET);
+		reservations.add(0, BUCKET);
+		
+		//buckets 60 to 199 span the end of the first word, all of the second and the start of the third
+		reservations.add(60 * BUCKET, 200 * BUCKET);
+		
+		assertTrue(reservations.isFree(59 * BUCKET, 60 * BUCKET));
+		assertFalse(reservations.isFree(63 * BUCKET, 64 * BUCKET));
+		assertFalse(reservations.isFree(64 * BUCKET, 65 * BUCKET));
+		assertFalse(reservations.isFree(128 * BUCKET, 129 * BUCKET));
+		assertFalse(reservations.isFree(199 * BUCKET, 200 * BUCKET));
+		assertTrue(reservations.isFree(200 * BUCKET, 201 * BUCKET));
+		
+		assertEquals(BUCKET, reservations.findFree(0, 300 * BUCKET, 1));
+		assertEquals(200 * BUCKET, reservations.findFree(60 * BUCKET, 300 * BUCKET, 1));
+		assertEquals(200 * BUCKET, reservations.findFree(BUCKET, 300 * BUCKET, 60 * BUCKET));
+		assertEquals(60 * BUCKET, reservations.freeEnd(BUCKET, 300 * BUCKET));
+	}
+	
+	@Test
+	public void reservationBeforeTheOriginGrowsTheTimeline() {
+		BitsetReservations reservations = new BitsetReservations(BUCKET);
+		long day = DateRange.MINUTES_PER_DAY;
+		
+		reservations.add(10 * day + 60, 10 * day + 120);
+		reservations.add(-100 * day, -100 * day + 60);
+		
+		//the first reservation is kept when the timeline is moved
+		assertFalse(reservations.isFree(10 * day + 60, 10 * day + 120));
+		assertFalse(reservations.isFree(-100 * day, -100 * day + 60));
+		assertTrue(reservations.isFree(-100 * day + 60, 10 * day + 60));
+		
+		assertEquals(-100 * day + 60, reservations.findFree(-100 * day, 11 * day, 60));
+		assertEquals(10 * day + 60, reservations.freeEnd(-100 * day + 60, 11 * day));
+		assertEquals(10 * day + 120, reservations.findFree(10 * day, 11 * day, 61));
+	}
+	
+	@Test
+	public void freeLookupsAtTheEdgesOfBuckets() {
+		BitsetReservations reservations = new BitsetReservations(BUCKET);
+		reservations.add(60, 120);
+		
+		assertTrue(reservations.isFree(45, 60));
+		assertTrue(reservations.isFree(120, 135));
+		assertFalse(reservations.isFree(105, 120));
+		
+		assertEquals(0, reservations.findFree(0, 200, 60));
+		assertEquals(45, reservations.findFree(45, 200, 15));
+		assertEquals(120, reservations.findFree(45, 200, 16));
+		assertEquals(120, reservations.findFree(60, 200, 1));
+		assertEquals(ReservationIndex.NONE, reservations.findFree(60, 120, 1));
+		
+		assertEquals(60, reservations.freeEnd(0, 200));
+		assertEquals(60, reservations.freeEnd(45, 200));
+		assertEquals(200, reservations.freeEnd(120, 200));
+		
+		//a reservation inside of a bucket occupies the whole bucket
+		reservations.add(140, 145);
+		assertFalse(reservations.isFree(135, 140));
+		assertEquals(135, reservations.freeEnd(120, 200));
+		assertEquals(150, reservations.findFree(135, 200, 1));
+	}
+}
@@ -0,0 +1,52 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that ConfigReader rejects tasks which would get the same UIDs
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class ConfigReaderTest {
+	private PlannerFixture fixture;
+	
+	@Before
+	public void setUp() throws Exception {
+		fixture = new PlannerFixture("duplicates", "schedule.ics", "task.xml", "assignment.xml");
+	}
+	
+	@After
+	public void tearDown() {
+		fixture.delete();
+	}
+	
+	/**
+	 * Reads a configuration which must be rejected
+	 * @param name of the configuration file
+	 * @return the message of the exception
+	 */
+	private String reject(String config) {
+		try {
+			new ConfigReader(fixture.getFile(config)).process();
+			fail("The configuration '" + config + "' has been accepted");
+		}catch(Exception e) {
+			return e.getMessage();
+		}
+		
+		return null;
+	}
+	
+	@Test
+	public void taskWithTheSameNameAndTypeIsRejected() {
+		assertEquals("The task 'Prepare' is defined more than once before the events of the pattern '.*'", reject("task.xml"));
+	}
+	
+	@Test
+	public void assignmentWithTheSamePatternIsRejected() {
+		assertEquals("The pattern 'Math' is used by more than one assignment", reject("assignment.xml"));
+	}
+}
@@ -0,0 +1,121 @@
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDateTime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests the min-cost flow of FlowStrategy on cases which can be checked by hand
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class FlowStrategyTest {
+	//one evening hour on monday, tuesday and wednesday sorted by priority
+	private static final List<Vacancy> VACANCIES = Arrays.asList(
+			new Vacancy(1, "18:00", "19:00", 1),
+			new Vacancy(2, "18:00", "19:00", 2),
+			new Vacancy(3, "18:00", "19:00", 3)
+	);
+	
+	private static DateRange range(String from, String to) {
+		return new DateRange(LocalDateTime.parse(from), LocalDateTime.parse(to));
+	}
+	
+	/**
+	 * Sums up the ranks of the vacancies of all placed hours
+	 * @param the vacancies sorted by priority
+	 * @param the placed demands
+	 * @return the cost of the placement
+	 */
+	private static long cost(List<Vacancy> vacancies, Demand ... demands) {
+		long ret = 0;
+		
+		for(Demand demand : demands) {
+			for(DateRange chunk : demand.getChunks()) {
+				for(long start = chunk.getStartMinutes(); start < chunk.getEndMinutes(); start += DateRange.MINUTES_PER_HOUR) {
+					DateRange hour = new DateRange(start, start + DateRange.MINUTES_PER_HOUR);
+					
+					int rank = 0;
+					while(!vacancies.get(rank).sameWeekday(start) || !hour.insideRange(vacancies.get(rank).getRange(start))) {
+						rank++;
+					}
+					
+					ret += rank;
+				}
+			}
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * Places the competing demands, the first one can only use monday, the second one every evening
+	 * @param the budget of the run
+	 * @return the placed demands
+	 */
+	private static Demand[] compete(Budget budget) {
+		Demand[] ret = {
+				new Demand(range("2018-09-03T00:00", "2018-09-04T00:00"), 1),
+				new Demand(range("2018-09-03T00:00", "2018-09-06T00:00"), 1)
+		};
+		
+		new FlowStrategy().place(Arrays.asList(ret), VACANCIES, new IntervalReservations(), new Metrics(), budget);
+		return ret;
+	}
+	
+	@Test
+	public void competingDemandsGetTheCheapestPlacement() {
+		Demand[] demands = compete(Budget.unlimited());
+		
+		//the second demand gives up monday and moves to the next best hour
+		assertEquals("2018-09-03T18:00/2018-09-03T19:00", QueueStrategyTest.chunks(demands[0]));
+		assertEquals("2018-09-04T18:00/2018-09-04T19:00", QueueStrategyTest.chunks(demands[1]));
+		assertEquals(0, demands[0].getMissing());
+		assertEquals(0, demands[1].getMissing());
+		assertEquals(1, cost(VACANCIES, demands));
+	}
+	
+	@Test
+	public void overlappingHoursOfWorsePriorityAreDropped() {
+		List<Vacancy> vacancies = Arrays.asList(
+				new Vacancy(1, "18:00", "19:00", 1),
+				new Vacancy(1, "18:30", "20:30", 2)
+		);
+		
+		//the hour 18:30 of the second vacancy overlaps the first one
+		Demand demand = new Demand(range("2018-09-03T00:00", "2018-09-04T00:00"), 3);
+		new FlowStrategy().place(Arrays.asList(demand), vacancies, new IntervalReservations(), new Metrics(), Budget.unlimited());
+		
+		assertEquals("2018-09-03T18:00/2018-09-03T19:00 2018-09-03T19:30/2018-09-03T20:30", QueueStrategyTest.chunks(demand));
+		assertEquals(1, demand.getMissing());
+		assertEquals(1, cost(vacancies, demand));
+	}
+	
+	@Test
+	public void exhaustedBudgetKeepsTheFlowFoundSoFar() {
+		List<String> placements = new ArrayList<>();
+		
+		for(long checks = 0; checks < 200; checks++) {
+			Demand[] demands = compete(new Budget(Long.MAX_VALUE, checks));
+			assertEquals(1, demands[0].getChunks().size() + demands[0].getMissing());
+			assertEquals(1, demands[1].getChunks().size() + demands[1].getMissing());
+			
+			String placement = QueueStrategyTest.chunks(demands[0]) + "|" + QueueStrategyTest.chunks(demands[1]);
+			if(placements.isEmpty() || !placements.get(placements.size() - 1).equals(placement)) {
+				placements.add(placement);
+			}
+		}
+		
+		//nothing, then the first shortest path gives monday to the second demand and at last it is rerouted to tuesday
+		assertEquals(Arrays.asList(
+				"|",
+				"|2018-09-03T18:00/2018-09-03T19:00",
+				"2018-09-03T18:00/2018-09-03T19:00|2018-09-04T18:00/2018-09-04T19:00"
+		), placements);
+	}
+}
@@ -0,0 +1,135 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the merging and the free lookups of IntervalReservations
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class IntervalReservationsTest {
+	static String format(List<DateRange> ranges) {
+		StringBuilder ret = new StringBuilder();
+		for(DateRange range : ranges) {
+			ret.append("[" + range.getStartMinutes() + "," + range.getEndMinutes() + ")");
+		}
+		
+		return ret.toString();
+	}
+	
+	@Test
+	public void touchingRangesAreMerged() {
+		IntervalReservations reservations = new IntervalReservations();
+		reservations.add(60, 120);
+		reservations.add(0, 60);
+		reservations.add(120, 180);
+		
+		assertEquals(1, reservations.size());
+		assertEquals("[0,180)", format(reservations.getReservations()));
+	}
+	
+	@Test
+	public void overlappingRangesAreMerged() {
+		IntervalReservations reservations = new IntervalReservations();
+		reservations.add(0, 90);
+		reservations.add(60, 120);
+		reservations.add(10, 20);
+		reservations.add(200, 260);
+		
+		assertEquals(2, reservations.size());
+		assertEquals("[0,120)[200,260)", format(reservations.getReservations()));
+	}
+	
+	@Test
+	public void insertSwallowsSeveralRanges() {
+		IntervalReservations reservations = new IntervalReservations();
+		reservations.add(0, 10);
+		reservations.add(20, 30);
+		reservations.add(40, 50);
+		reservations.add(60, 70);
+		reservations.add(100, 110);
+		
+		reservations.add(5, 65);
+		
+		assertEquals(2, reservations.size());
+		assertEquals("[0,70)[100,110)", format(reservations.getReservations()));
+	}
+	
+	@Test
+	public void freeLookupsAtTheEndsOfReservations() {
+		IntervalReservations reservations = new IntervalReservations();
+		reservations.add(60, 120);
+		reservations.add(180, 240);
+		
+		assertTrue(reservations.isFree(0, 60));
+		assertTrue(reservations.isFree(120, 180));
+		assertFalse(reservations.isFree(0, 61));
+		assertFalse(reservations.isFree(119, 180));
+		assertFalse(reservations.isFree(120, 181));
+		
+		assertEquals(0, reservations.findFree(0, 300, 60));
+		assertEquals(120, reservations.findFree(60, 300, 60));
+		assertEquals(240, reservations.findFree(121, 300, 60));
+		assertEquals(ReservationIndex.NONE, reservations.findFree(60, 240, 61));
+		
+		assertEquals(60, reservations.freeEnd(0, 300));
+		assertEquals(180, reservations.freeEnd(120, 300));
+		assertEquals(300, reservations.freeEnd(240, 300));
+		assertEquals(150, reservations.freeEnd(120, 150));
+	}
+	
+	/**
+	 * The free parts of the range which last at least one hour, found minute by minute like the
+	 * former substractCollisions which split the range and filtered the parts by a duration of more than 0 hours
+	 * @param the range to subtract from
+	 * @param the subtracted ranges
+	 * @return the free parts in ascending order
+	 */
+	private static List<DateRange> baseline(DateRange range, List<DateRange> collisions) {
+		List<DateRange> ret = new ArrayList<>();
+		long start = -1;
+		
+		for(long minute = range.getStartMinutes(); minute <= range.getEndMinutes(); minute++) {
+			boolean free = minute < range.getEndMinutes();
+			for(DateRange collision : collisions) {
+				free &= minute < collision.getStartMinutes() || minute >= collision.getEndMinutes();
+			}
+			
+			if(free && start < 0) {
+				start = minute;
+			}else if(!free && start >= 0) {
+				if(minute - start >= DateRange.MINUTES_PER_HOUR) {
+					ret.add(new DateRange(start, minute));
+				}
+				
+				start = -1;
+			}
+		}
+		
+		return ret;
+	}
+	
+	@Test
+	public void substractCollisionsKeepsThePartsOfAtLeastOneHour() {
+		Random random = new Random(1);
+		
+		for(int round = 0; round < 500; round++) {
+			DateRange range = new DateRange(random.nextInt(600), 600 + random.nextInt(600));
+			
+			List<DateRange> collisions = new ArrayList<>();
+			for(int idx = random.nextInt(8); idx > 0; idx--) {
+				long start = random.nextInt(1300);
+				collisions.add(new DateRange(start, start + 1 + random.nextInt(180)));
+			}
+			
+			assertEquals(format(baseline(range, collisions)), format(range.substractCollisions(collisions)));
+		}
+	}
+}
@@ -0,0 +1,89 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import net.fortuna.ical4j.model.Property;
+import net.fortuna.ical4j.model.component.CalendarComponent;
+
+/**
+ * Copies a configuration and its schedule from the test resources into a temporary directory and plans it
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class PlannerFixture {
+	private File directory;
+	private File config;
+	
+	/**
+	 * Copies the files of the fixture into a new temporary directory.
+	 * The placeholder ${directory} in the files is replaced by the path of that directory
+	 * @param the name of the fixture below /fixtures
+	 * @param the names of the files of the fixture
+	 * @throws IOException
+	 */
+	public PlannerFixture(String name, String ... files) throws IOException {
+		directory = Files.createTempDirectory("workloadplanner-test").toFile();
+		
+		for(String file : files) {
+			InputStream in = PlannerFixture.class.getResourceAsStream("/fixtures/" + name + "/" + file);
+			if(in == null) {
+				throw new IOException("The fixture '" + name + "/" + file + "' does not exist");
+			}
+			
+			String content;
+			try(Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name())) {
+				content = scanner.useDelimiter("\\A").hasNext() ? scanner.next() : "";
+			}
+			
+			content = content.replace("${directory}", directory.getAbsolutePath());
+			Files.write(getFile(file).toPath(), content.getBytes(StandardCharsets.UTF_8));
+		}
+		
+		config = getFile("config.xml");
+	}
+	
+	/**
+	 * @param the name of the file
+	 * @return the file inside of the temporary directory
+	 */
+	public File getFile(String name) {
+		return new File(directory, name);
+	}
+	
+	/**
+	 * Reads the configuration and plans it with the given calculator
+	 * @param the configured calculator
+	 * @return start, end and summary of the created events
+	 * @throws Exception
+	 */
+	public List<String> plan(DateCalculator calc) throws Exception {
+		ConfigReader reader = new ConfigReader(config);
+		reader.process();
+		
+		List<String> ret = new ArrayList<>();
+		for(CalendarComponent event : calc.calculateEvents(reader)) {
+			ret.add(event.getProperty(Property.DTSTART).getValue() + " " + event.getProperty(Property.DTEND).getValue() + " " + event.getProperty(Property.SUMMARY).getValue());
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * Deletes the temporary directory and its files
+	 */
+	public void delete() {
+		for(File file : directory.listFiles()) {
+			file.delete();
+		}
+		
+		directory.delete();
+	}
+}
@@ -0,0 +1,62 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests which placements of the last run are kept by PlanningState
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class PlanningStateTest {
+	private PlannerFixture fixture;
+	private File stateFile;
+	
+	@Before
+	public void setUp() throws Exception {
+		fixture = new PlannerFixture("state", "schedule.ics", "config.xml");
+		stateFile = fixture.getFile("state.bin");
+	}
+	
+	@After
+	public void tearDown() {
+		fixture.delete();
+	}
+	
+	/**
+	 * Plans the configuration with the given strategy and the state file
+	 * @param name of the strategy
+	 * @return the amount of tasks which kept their placement of the last run
+	 * @throws Exception
+	 */
+	private long plan(String strategy) throws Exception {
+		Metrics metrics = new Metrics();
+		DateCalculator calc = new DateCalculator(false);
+		calc.setStrategy(SchedulingStrategy.of(strategy));
+		calc.setPlanningState(new PlanningState(stateFile));
+		calc.setMetrics(metrics);
+		fixture.plan(calc);
+		
+		return metrics.getCount("tasks.reused");
+	}
+	
+	@Test
+	public void unchangedRunKeepsThePlacements() throws Exception {
+		assertEquals(0, plan("greedy"));
+		assertEquals(2, plan("greedy"));
+	}
+	
+	@Test
+	public void changedStrategyPlansAgain() throws Exception {
+		plan("greedy");
+		assertTrue(stateFile.isFile());
+		
+		assertEquals(0, plan("queue"));
+		assertEquals(2, plan("queue"));
+	}
+}
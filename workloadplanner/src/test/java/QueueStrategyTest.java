@@ -0,0 +1,76 @@
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDateTime;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests the placement of QueueStrategy compared to GreedyStrategy
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class QueueStrategyTest {
+	//monday and wednesday evening
+	private static final List<Vacancy> VACANCIES = Arrays.asList(
+			new Vacancy(1, "18:00", "20:00", 1),
+			new Vacancy(3, "18:00", "20:00", 1)
+	);
+	
+	private static DateRange range(String from, String to) {
+		return new DateRange(LocalDateTime.parse(from), LocalDateTime.parse(to));
+	}
+	
+	/**
+	 * @param the placed demand
+	 * @return the chunks as start/end separated by spaces
+	 */
+	static String chunks(Demand demand) {
+		StringBuilder ret = new StringBuilder();
+		for(DateRange chunk : demand.getChunks()) {
+			ret.append(ret.length() == 0 ? "" : " ").append(chunk.getStart() + "/" + chunk.getEnd());
+		}
+		
+		return ret.toString();
+	}
+	
+	private static void place(String strategy, Demand ... demands) {
+		SchedulingStrategy.of(strategy).place(Arrays.asList(demands), VACANCIES, new IntervalReservations(), new Metrics(), Budget.unlimited());
+	}
+	
+	@Test
+	public void earliestDeadlineIsServedFirst() {
+		//the first task could also use wednesday, the second one only has monday
+		Demand week = new Demand(range("2018-09-03T00:00", "2018-09-08T00:00"), 2);
+		Demand monday = new Demand(range("2018-09-03T00:00", "2018-09-04T00:00"), 2);
+		
+		place("greedy", week, monday);
+		assertEquals("2018-09-03T18:00/2018-09-03T20:00", chunks(week));
+		assertEquals(2, monday.getMissing());
+		
+		week = new Demand(week.getWindow(), 2);
+		monday = new Demand(monday.getWindow(), 2);
+		
+		place("queue", week, monday);
+		assertEquals("2018-09-05T18:00/2018-09-05T20:00", chunks(week));
+		assertEquals("2018-09-03T18:00/2018-09-03T20:00", chunks(monday));
+		assertEquals(0, week.getMissing());
+		assertEquals(0, monday.getMissing());
+	}
+	
+	@Test
+	public void onlyHoursInsideOfTheWindowAreUsed() {
+		//greedy takes the whole vacancy of the first day, also the hour before the window starts
+		Demand greedy = new Demand(range("2018-09-03T19:00", "2018-09-04T00:00"), 2);
+		place("greedy", greedy);
+		assertEquals("2018-09-03T18:00/2018-09-03T20:00", chunks(greedy));
+		
+		Demand queue = new Demand(greedy.getWindow(), 2);
+		place("queue", queue);
+		assertEquals("2018-09-03T19:00/2018-09-03T20:00", chunks(queue));
+		assertEquals(1, queue.getMissing());
+	}
+}
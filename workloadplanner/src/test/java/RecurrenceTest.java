@@ -0,0 +1,58 @@
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests the expansion of recurring events by Recurrence
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class RecurrenceTest {
+	private static final String ZONE = "Europe/Zurich";
+	
+	private static long at(String time) {
+		return LocalDateTime.parse(time).atZone(ZoneId.of(ZONE)).toInstant().toEpochMilli();
+	}
+	
+	private static List<Long> starts(String rrule, String start, long from, long to) throws Exception {
+		long begin = at(start);
+		SourceEvent series = new SourceEvent("uid", "Lecture", "CONFIRMED", begin, begin + 3600000, ZONE, rrule, null, null, null);
+		Recurrence recurrence = new Recurrence(series, Collections.emptySet(), from, to);
+		
+		List<Long> ret = new ArrayList<>();
+		while(recurrence.hasNext()) {
+			ret.add(recurrence.next().getStart());
+		}
+		
+		return ret;
+	}
+	
+	@Test
+	public void countedSeriesEndsWithItsCount() throws Exception {
+		List<Long> starts = starts("FREQ=DAILY;COUNT=500", "2024-01-01T08:00", 0, Long.MAX_VALUE);
+		
+		assertEquals(500, starts.size());
+		assertEquals(at("2025-05-14T08:00"), (long) starts.get(499));
+	}
+	
+	@Test
+	public void laterWindowKeepsThePeriodsOfTheSeries() throws Exception {
+		//every other week, the window starts years after the series in a week without an occurrence
+		List<Long> starts = starts("FREQ=WEEKLY;INTERVAL=2;BYDAY=TU,TH", "2020-01-07T10:15", at("2026-03-09T00:00"), at("2026-04-06T00:00"));
+		
+		List<Long> expected = new ArrayList<>();
+		for(String day : new String[] {"2026-03-10", "2026-03-12", "2026-03-24", "2026-03-26"}) {
+			expected.add(at(day + "T10:15"));
+		}
+		
+		assertEquals(expected, starts);
+	}
+}
@@ -0,0 +1,56 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that the auto mode of the reservation backends does not change the placements
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class ReservationBackendTest {
+	private PlannerFixture fixture;
+	
+	@Before
+	public void setUp() throws Exception {
+		//a dense calendar whose reservations are aligned to the buckets
+		fixture = new PlannerFixture("backend", "schedule.ics", "config.xml");
+	}
+	
+	@After
+	public void tearDown() {
+		fixture.delete();
+	}
+	
+	/**
+	 * Plans the configuration with the given backend
+	 * @param name of the backend
+	 * @param receives the counters of the run
+	 * @return start, end and summary of the created events
+	 * @throws Exception
+	 */
+	private List<String> plan(String backend, Metrics metrics) throws Exception {
+		DateCalculator calc = new DateCalculator(false);
+		calc.setReservationBackend(backend);
+		calc.setMetrics(metrics);
+		
+		return fixture.plan(calc);
+	}
+	
+	@Test
+	public void autoKeepsUnalignedVacanciesExact() throws Exception {
+		Metrics metrics = new Metrics();
+		List<String> interval = plan("interval", new Metrics());
+		
+		assertEquals(interval, plan("auto", metrics));
+		assertEquals(0, metrics.getCount("reservations.bitset"));
+		
+		//the timeline rounds the placed chunks to its buckets
+		assertNotEquals(interval, plan("bitset", new Metrics()));
+	}
+}
@@ -0,0 +1,158 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.net.InetSocketAddress;
+import java.net.URL;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests the downloads of ScheduleDownloader against a local HTTP server
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class ScheduleDownloaderTest {
+	private static final String BODY = "BEGIN:VCALENDAR\r\nEND:VCALENDAR\r\n";
+	private static final String ETAG = "\"v1\"";
+	
+	private HttpServer server;
+	private File cacheDirectory;
+	private List<String> conditions;
+	private volatile long delay;
+	
+	@Before
+	public void setUp() throws IOException {
+		cacheDirectory = Files.createTempDirectory("workloadplanner-test").toFile();
+		conditions = new ArrayList<>();
+		
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/schedule.ics", this::handle);
+		server.start();
+	}
+	
+	@After
+	public void tearDown() {
+		server.stop(0);
+		
+		File[] files = cacheDirectory.listFiles();
+		if(files != null) {
+			for(File file : files) {
+				file.delete();
+			}
+		}
+		
+		cacheDirectory.delete();
+	}
+	
+	/**
+	 * Answers with the schedule or with 304 if the client already knows the ETag
+	 * @param exchange
+	 * @throws IOException
+	 */
+	private void handle(HttpExchange exchange) throws IOException {
+		String condition = exchange.getRequestHeaders().getFirst("If-None-Match");
+		synchronized(conditions) {
+			conditions.add(condition);
+		}
+		
+		if(delay > 0) {
+			try {
+				Thread.sleep(delay);
+			}catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		if(ETAG.equals(condition)) {
+			exchange.sendResponseHeaders(304, -1);
+			exchange.close();
+			return;
+		}
+		
+		byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("ETag", ETAG);
+		exchange.sendResponseHeaders(200, body.length);
+		
+		try(OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+	
+	private URL url() throws IOException {
+		return new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/schedule.ics");
+	}
+	
+	@Test
+	public void downloadStoresBodyAndValidators() throws IOException {
+		File file = new ScheduleDownloader(cacheDirectory).download(url());
+		
+		assertEquals(BODY, new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+		
+		Properties meta = new Properties();
+		try(InputStream in = new FileInputStream(new File(cacheDirectory, ScheduleDownloader.hash(url().toString()) + ".properties"))) {
+			meta.load(in);
+		}
+		
+		assertEquals(ETAG, meta.getProperty("etag"));
+		assertEquals(url().toString(), meta.getProperty("url"));
+		
+		//no temporary files are left behind
+		assertEquals(2, cacheDirectory.listFiles().length);
+	}
+	
+	@Test
+	public void unchangedDownloadUsesTheCache() throws IOException {
+		ScheduleDownloader downloader = new ScheduleDownloader(cacheDirectory);
+		File first = downloader.download(url());
+		long modified = first.lastModified();
+		File second = downloader.download(url());
+		
+		assertEquals(first, second);
+		assertEquals(modified, second.lastModified());
+		assertEquals(BODY, new String(Files.readAllBytes(second.toPath()), StandardCharsets.UTF_8));
+		
+		assertEquals(2, conditions.size());
+		assertNull(conditions.get(0));
+		assertEquals(ETAG, conditions.get(1));
+	}
+	
+	@Test
+	public void slowServerTimesOut() throws IOException {
+		delay = 2000;
+		
+		ScheduleDownloader downloader = new ScheduleDownloader(cacheDirectory);
+		downloader.setTimeout(200);
+		
+		try {
+			downloader.download(url());
+			fail("The download did not time out");
+		}catch(IOException e) {
+			//expected
+		}
+		
+		//a failed download leaves nothing in the cache
+		assertFalse(new File(cacheDirectory, ScheduleDownloader.hash(url().toString()) + ".ics").exists());
+		assertEquals(0, cacheDirectory.listFiles().length);
+	}
+}
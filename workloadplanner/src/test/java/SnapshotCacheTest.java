@@ -0,0 +1,58 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that the snapshots of SnapshotCache belong to the mode the file has been read in
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class SnapshotCacheTest {
+	private File directory;
+	private File source;
+	
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("workloadplanner-test").toFile();
+		source = new File(directory, "schedule.ics");
+		Files.write(source.toPath(), "BEGIN:VCALENDAR\r\nEND:VCALENDAR\r\n".getBytes(StandardCharsets.UTF_8));
+	}
+	
+	@After
+	public void tearDown() {
+		for(File file : new File(directory, "snapshots").listFiles()) {
+			file.delete();
+		}
+		
+		new File(directory, "snapshots").delete();
+		source.delete();
+		directory.delete();
+	}
+	
+	@Test
+	public void snapshotBelongsToTheMode() throws IOException {
+		SnapshotCache cache = new SnapshotCache(new File(directory, "snapshots"));
+		List<SourceEvent> events = Arrays.asList(
+				new SourceEvent("uid-1", "Lecture", "CONFIRMED", 0, 3600000, "Europe/Zurich", null, null, null, null)
+		);
+		
+		cache.store(source, true, source.length(), source.lastModified(), events);
+		
+		assertNull(cache.load(source, false));
+		assertEquals(1, cache.load(source, true).size());
+		assertEquals("uid-1", cache.load(source, true).get(0).getUid());
+	}
+}
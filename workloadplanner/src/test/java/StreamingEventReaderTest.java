@@ -0,0 +1,89 @@
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileInputStream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.fortuna.ical4j.data.CalendarBuilder;
+import net.fortuna.ical4j.model.Calendar;
+import net.fortuna.ical4j.model.component.VEvent;
+
+/**
+ * Tests that StreamingEventReader reads the same events as ical4j
+ *
+ * @author Matthieu Riolo
+ *
+ */
+public class StreamingEventReaderTest {
+	/**
+	 * Folded lines, a prefixed TZID, a DURATION in weeks, a nested VALARM, an escaped SUMMARY,
+	 * a DATE without DTEND and a cancelled replacement of an occurrence
+	 */
+	private static File schedule() throws Exception {
+		return new File(StreamingEventReaderTest.class.getResource("/fixtures/streaming/schedule.ics").toURI());
+	}
+	
+	private static String format(SourceEvent event) {
+		return event.getUid()
+				+ "|" + event.getSummary()
+				+ "|" + event.getStatus()
+				+ "|" + event.getStart()
+				+ "|" + event.getEnd()
+				+ "|" + event.getZone()
+				+ "|" + event.getRRule()
+				+ "|" + Arrays.toString(event.getRDates())
+				+ "|" + Arrays.toString(event.getExDates())
+				+ "|" + event.getRecurrenceId();
+	}
+	
+	/**
+	 * Reads the schedule with ical4j like DateCalculator does without streaming
+	 * @param if true the events are filtered like StreamingEventReader filters them
+	 * @return the formatted events
+	 */
+	private static List<String> parse(boolean confirmedOnly) throws Exception {
+		List<String> ret = new ArrayList<>();
+		
+		try(FileInputStream in = new FileInputStream(schedule())) {
+			Calendar calendar = new CalendarBuilder(new PrefixedTimeZoneRegistry()).build(in);
+			
+			for(VEvent component : calendar.<VEvent>getComponents("VEVENT")) {
+				SourceEvent event = SourceEvent.of(component);
+				if(!confirmedOnly || event.isConfirmed() || event.getRecurrenceId() != null) {
+					ret.add(format(event));
+				}
+			}
+		}
+		
+		return ret;
+	}
+	
+	private static List<String> stream(boolean confirmedOnly) throws Exception {
+		List<String> ret = new ArrayList<>();
+		new StreamingEventReader(confirmedOnly).read(schedule(), event -> ret.add(format(event)));
+		
+		return ret;
+	}
+	
+	@Test
+	public void streamingReadsTheEventsOfIcal4j() throws Exception {
+		List<String> events = parse(false);
+		
+		assertEquals(6, events.size());
+		assertEquals(events, stream(false));
+	}
+	
+	@Test
+	public void confirmedOnlyKeepsCancelledReplacements() throws Exception {
+		List<String> events = stream(true);
+		
+		//the tentative seminar is skipped, the cancelled occurrence of the lecture is kept
+		assertEquals(5, events.size());
+		assertEquals(parse(true), events);
+	}
+}